@@ -0,0 +1,69 @@
+package com.dailycodebuffer.reactiveprogramming.benchmarks;
+
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryEncoder;
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryFormat;
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+//Costo de serializar un Book con Jackson contra BookBinaryEncoder, con el mismo pool de
+//buffers de Netty que usa el servidor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookCodecBenchmark {
+
+    @Param({"2", "100", "10000"})
+    public int reviewCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BookBinaryEncoder encoder = new BookBinaryEncoder();
+    private final NettyDataBufferFactory bufferFactory
+            = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        var reviews = new ArrayList<Review>(reviewCount);
+        for (int i = 1; i <= reviewCount; i++)
+            reviews.add(new Review(i, 1, i % 2 == 0 ? 9.1 : 8.6, i % 2 == 0 ? "Good Book" : "Worth Reading"));
+        book = new Book(new BookInfo(1, "Book One", "Author One", "12121212"), reviews);
+    }
+
+    @Benchmark
+    public int json() throws Exception {
+        return objectMapper.writeValueAsBytes(book).length;
+    }
+
+    @Benchmark
+    public int binary() {
+        var buffer = encoder.encodeValue(book, bufferFactory,
+                ResolvableType.forClass(Book.class), BookBinaryFormat.MIME_TYPE, null);
+        var size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
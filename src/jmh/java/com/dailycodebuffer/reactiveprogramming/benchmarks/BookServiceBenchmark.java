@@ -0,0 +1,68 @@
+package com.dailycodebuffer.reactiveprogramming.benchmarks;
+
+import com.dailycodebuffer.reactiveprogramming.instrumentation.PipelineInstrumentation;
+import com.dailycodebuffer.reactiveprogramming.services.BookAggregationOptions;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+//Throughput de BookService con servicios sintéticos. Cada invocación recorre el catálogo
+//completo, así que el resultado es catálogos por segundo; para libros por segundo se
+//multiplica por catalogSize. La instrumentación se apaga para medir solo el pipeline
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private BookService bookService;
+    private long nextBookId;
+
+    @Setup
+    public void setUp() {
+        var options = BookAggregationOptions.builder()
+                .instrumentation(PipelineInstrumentation.noop())
+                .build();
+        bookService = new BookService(new SyntheticBookInfoService(catalogSize),
+                new ReviewService(), options);
+    }
+
+    @Benchmark
+    public void getBooks(Blackhole blackhole) {
+        bookService.getBooks().subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void getBooksBatched(Blackhole blackhole) {
+        bookService.getBooksBatched(100, Duration.ofMillis(50))
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    //Un libro por invocación, recorriendo los ids del catálogo
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void getBookById(Blackhole blackhole) {
+        nextBookId = nextBookId % catalogSize + 1;
+        bookService.getBookById(nextBookId).subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,82 @@
+package com.dailycodebuffer.reactiveprogramming.benchmarks;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.instrumentation.PipelineInstrumentation;
+import com.dailycodebuffer.reactiveprogramming.services.BookAggregationOptions;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.EnrichmentOptions;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+//Escalamiento de getBooksEnriched con la cantidad de rails. El enrichment gasta CPU fija
+//por libro (Blackhole.consumeCPU), así que hasta la cantidad de cores el throughput
+//debería crecer casi lineal con rails
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnrichmentBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int rails;
+
+    @Param({"false", "true"})
+    public boolean ordered;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private BookService bookService;
+    private Scheduler scheduler;
+    private EnrichmentOptions enrichmentOptions;
+
+    @Setup
+    public void setUp() {
+        var options = BookAggregationOptions.builder()
+                .instrumentation(PipelineInstrumentation.noop())
+                .build();
+        bookService = new BookService(new SyntheticBookInfoService(catalogSize),
+                new ReviewService(), options);
+        scheduler = Schedulers.newParallel("enrichment", rails);
+        enrichmentOptions = EnrichmentOptions.builder()
+                .parallelism(rails)
+                .scheduler(scheduler)
+                .ordered(ordered)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public void getBooksEnriched(Blackhole blackhole) {
+        bookService.getBooksEnriched(EnrichmentBenchmark::enrich, enrichmentOptions)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    private static Book enrich(Book book) {
+        Blackhole.consumeCPU(20_000);
+        return book;
+    }
+}
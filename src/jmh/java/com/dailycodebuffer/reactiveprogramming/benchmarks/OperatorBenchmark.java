@@ -0,0 +1,116 @@
+package com.dailycodebuffer.reactiveprogramming.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Las variantes de operadores de FluxAndMonoServices con la misma forma pero sin delays
+//ni .log(), sobre size frutas, para comparar su costo entre sí:
+//flatMap / concatMap / mergeSequential, zip / zipWith y onErrorContinue / onErrorResume
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+    private static final List<String> FRUITS = List.of("Mango","Orange","Banana");
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private List<String> fruits;
+    private List<String> veggies;
+
+    @Setup
+    public void setUp() {
+        fruits = new ArrayList<>(size);
+        veggies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            fruits.add(FRUITS.get(i % FRUITS.size()));
+            veggies.add(i % 2 == 0 ? "Tomato" : "Lemon");
+        }
+    }
+
+    //Igual que fruitsFluxFlatMap
+    @Benchmark
+    public void flatMap(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .flatMap(s -> Flux.just(s.split("")))
+                .subscribe(blackhole::consume);
+    }
+
+    //Igual que fruitsFluxConcatMap
+    @Benchmark
+    public void concatMap(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .concatMap(s -> Flux.just(s.split("")))
+                .subscribe(blackhole::consume);
+    }
+
+    //flatMapSequential es la versión de mergeSequential para un flujo de flujos, como la
+    //que usa BookService con ordered
+    @Benchmark
+    public void mergeSequential(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .flatMapSequential(s -> Flux.just(s.split("")))
+                .subscribe(blackhole::consume);
+    }
+
+    //Igual que fruitsFluxZip
+    @Benchmark
+    public void zip(Blackhole blackhole) {
+        Flux.zip(Flux.fromIterable(fruits), Flux.fromIterable(veggies),
+                (first,second) -> first+second)
+                .subscribe(blackhole::consume);
+    }
+
+    //Igual que fruitsFluxZipWith
+    @Benchmark
+    public void zipWith(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .zipWith(Flux.fromIterable(veggies), (first,second) -> first+second)
+                .subscribe(blackhole::consume);
+    }
+
+    //Igual que fruitsFluxOnErrorContinue: cada Mango falla y se salta
+    @Benchmark
+    public void onErrorContinue(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .map(OperatorBenchmark::upperCaseUnlessMango)
+                .onErrorContinue((e,f) -> blackhole.consume(f))
+                .subscribe(blackhole::consume);
+    }
+
+    //El equivalente con onErrorResume tiene que aislar cada elemento en su propio flujo
+    //para poder seguir después del error
+    @Benchmark
+    public void onErrorResume(Blackhole blackhole) {
+        Flux.fromIterable(fruits)
+                .concatMap(s -> Flux.just(s)
+                        .map(OperatorBenchmark::upperCaseUnlessMango)
+                        .onErrorResume(e -> Flux.empty()))
+                .subscribe(blackhole::consume);
+    }
+
+    private static String upperCaseUnlessMango(String s) {
+        if (s.equalsIgnoreCase("Mango"))
+            throw new RuntimeException("Exception Occurred");
+        return s.toUpperCase();
+    }
+}
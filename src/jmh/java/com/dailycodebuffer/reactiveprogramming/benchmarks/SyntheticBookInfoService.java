@@ -0,0 +1,31 @@
+package com.dailycodebuffer.reactiveprogramming.benchmarks;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Catálogo generado de catalogSize libros, sin I/O, para medir solo el pipeline
+class SyntheticBookInfoService extends BookInfoService {
+
+    private final int catalogSize;
+
+    SyntheticBookInfoService(int catalogSize) {
+        this.catalogSize = catalogSize;
+    }
+
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return Flux.range(1, catalogSize)
+                .map(SyntheticBookInfoService::bookInfo);
+    }
+
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return Mono.fromSupplier(() -> bookInfo(bookId));
+    }
+
+    private static BookInfo bookInfo(long bookId) {
+        return new BookInfo(bookId, "Book " + bookId, "Author " + (bookId % 1000), "ISBN-" + bookId);
+    }
+}
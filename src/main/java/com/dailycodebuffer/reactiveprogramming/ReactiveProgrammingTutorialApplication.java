@@ -2,15 +2,17 @@ package com.dailycodebuffer.reactiveprogramming;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import reactor.tools.agent.ReactorDebugAgent;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+//Los servicios R2DBC se arman a mano con R2dbcConnections.pooled, así que no se deja que
+//Boot cree su propio ConnectionFactory (sin driver ni spring.r2dbc.url no arranca)
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class ReactiveProgrammingTutorialApplication {
 
 	public static void main(String[] args) {
 		//cuando se haya agregado la dependencia de reator tools ya se puede usar este 
-		//debug agent
-		ReactorDebugAgent.init();
+		//debug agent. En producción (perfil prod) no se instala, ver StartupMode
+		StartupMode.detect(args).installDebugging();
 		SpringApplication.run(ReactiveProgrammingTutorialApplication.class, args);
 	}
 
@@ -18,4 +20,4 @@ public class ReactiveProgrammingTutorialApplication {
 
 
 // tutorial
-// https://www.youtube.com/watch?v=O26jhgk682Q
\ No newline at end of file
+// https://www.youtube.com/watch?v=O26jhgk682Q
@@ -0,0 +1,79 @@
+package com.dailycodebuffer.reactiveprogramming;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+//Decide al arrancar si se instala el ReactorDebugAgent. En DEBUG se instrumenta el
+//bytecode de todos los operadores para tener el ensamblado en los stack traces. En
+//PRODUCTION no se instala y solo quedan los checkpoints livianos con nombre que ponen
+//nuestros pipelines (PipelineInstrumentation).
+//Se elige PRODUCTION si el perfil activo de Spring incluye "prod", o explícitamente con
+//-Dreactor.debug-agent=false. El agente se tiene que instalar antes de SpringApplication.run,
+//así que el perfil se busca a mano con la misma precedencia que usa Spring: argumentos del
+//main (--spring.profiles.active=prod), propiedades del sistema y variable de entorno
+@Slf4j
+public enum StartupMode {
+    DEBUG,
+    PRODUCTION;
+
+    static final String DEBUG_AGENT_PROPERTY = "reactor.debug-agent";
+    static final String PRODUCTION_PROFILE = "prod";
+
+    private static final String DEBUG_AGENT_CLASS = "reactor.tools.agent.ReactorDebugAgent";
+
+    public static StartupMode detect(String... args) {
+        return detect(args, System::getProperty, System::getenv);
+    }
+
+    static StartupMode detect(UnaryOperator<String> systemProperties, UnaryOperator<String> environment) {
+        return detect(new String[0], systemProperties, environment);
+    }
+
+    static StartupMode detect(String[] args, UnaryOperator<String> systemProperties,
+                              UnaryOperator<String> environment) {
+        var debugAgent = argument(args, DEBUG_AGENT_PROPERTY);
+        if (debugAgent == null)
+            debugAgent = systemProperties.apply(DEBUG_AGENT_PROPERTY);
+        if (debugAgent != null)
+            return Boolean.parseBoolean(debugAgent) ? DEBUG : PRODUCTION;
+
+        var profiles = argument(args, "spring.profiles.active");
+        if (profiles == null)
+            profiles = systemProperties.apply("spring.profiles.active");
+        if (profiles == null)
+            profiles = environment.apply("SPRING_PROFILES_ACTIVE");
+        if (profiles != null && Arrays.stream(profiles.split(","))
+                .map(String::trim)
+                .anyMatch(PRODUCTION_PROFILE::equals))
+            return PRODUCTION;
+
+        return DEBUG;
+    }
+
+    //Como en Spring, si el argumento se repite gana el último
+    private static String argument(String[] args, String name) {
+        var prefix = "--" + name + "=";
+        String value = null;
+        for (String arg : args) {
+            if (arg.startsWith(prefix))
+                value = arg.substring(prefix.length());
+        }
+        return value;
+    }
+
+    //reactor-tools es opcional en el pom y el perfil prod lo saca del jar, por eso el
+    //agente se carga por reflexión
+    public void installDebugging() {
+        if (this == PRODUCTION) {
+            log.info("Production startup: ReactorDebugAgent not installed");
+            return;
+        }
+        try {
+            Class.forName(DEBUG_AGENT_CLASS).getMethod("init").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("ReactorDebugAgent not available, continuing without it: " + e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import lombok.Builder;
+import lombok.Value;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+
+//Parámetros del AIMD de AdaptiveDemandSubscriber
+@Value
+@Builder
+public class AdaptiveDemandOptions {
+
+    //Demanda con la que arranca, antes de tener mediciones
+    @Builder.Default
+    int initialDemand = 8;
+
+    @Builder.Default
+    int minDemand = 1;
+
+    @Builder.Default
+    int maxDemand = Queues.SMALL_BUFFER_SIZE;
+
+    //Cuánto se acepta que espere el último elemento pedido hasta que el consumidor lo
+    //procese: demanda × tiempo promedio por elemento
+    @Builder.Default
+    Duration targetLatency = Duration.ofMillis(100);
+
+    //Aumento aditivo: la demanda sube en este valor por cada ventana completa procesada
+    //dentro de la latencia objetivo
+    @Builder.Default
+    double additiveIncrease = 1;
+
+    //Disminución multiplicativa cuando se pasa de la latencia objetivo
+    @Builder.Default
+    double decreaseFactor = 0.5;
+
+    //Peso de la última medición en el promedio móvil exponencial del tiempo por elemento
+    @Builder.Default
+    double smoothing = 0.2;
+
+    public static AdaptiveDemandOptions defaults() {
+        return AdaptiveDemandOptions.builder().build();
+    }
+}
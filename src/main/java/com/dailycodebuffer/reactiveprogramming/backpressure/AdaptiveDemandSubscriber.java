@@ -0,0 +1,135 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+//Subscriber que ajusta solo cuánto le pide al publisher, en vez de un request(n) fijo como
+//en BackPressureTest. Mide cuánto tarda handler con cada elemento (promedio móvil) y
+//estima la latencia de la cola como demanda × tiempo por elemento: lo que espera el
+//último elemento pedido hasta que le toca. Con AIMD, como el control de congestión de TCP:
+//- si la latencia está bajo el objetivo la demanda sube additiveIncrease por ventana
+//- si se pasa, la demanda baja a la mitad (decreaseFactor), como mucho una vez por ventana
+//Así la demanda sigue lo que el consumidor alcanza a procesar: no se acumulan elementos
+//que van a esperar de más, ni se deja al consumidor esperando por pedir muy poco.
+//Los pedidos se agrupan: se vuelve a pedir cuando falta al menos un cuarto de la ventana
+public class AdaptiveDemandSubscriber<T> extends BaseSubscriber<T> {
+
+    private final Consumer<? super T> handler;
+    private final AdaptiveDemandOptions options;
+    private final LongSupplier nanoClock;
+    private final MonoSink<Void> completion;
+    private final long targetNanos;
+
+    private double demand;
+    private long outstanding;
+    private double averageNanos;
+    private long sinceDecrease;
+    private long processed;
+
+    public AdaptiveDemandSubscriber(Consumer<? super T> handler, AdaptiveDemandOptions options) {
+        this(handler, options, System::nanoTime, null);
+    }
+
+    AdaptiveDemandSubscriber(Consumer<? super T> handler, AdaptiveDemandOptions options,
+                             LongSupplier nanoClock, MonoSink<Void> completion) {
+        this.handler = handler;
+        this.options = options;
+        this.nanoClock = nanoClock;
+        this.completion = completion;
+        this.targetNanos = options.getTargetLatency().toNanos();
+        this.demand = clamp(options.getInitialDemand());
+    }
+
+    //Consume source con handler y demanda adaptiva. El Mono termina cuando termina el
+    //flujo, y cancelarlo cancela la suscripción
+    public static <T> Mono<Void> consume(Flux<T> source, Consumer<? super T> handler,
+                                         AdaptiveDemandOptions options) {
+        return consume(source, handler, options, System::nanoTime);
+    }
+
+    static <T> Mono<Void> consume(Flux<T> source, Consumer<? super T> handler,
+                                  AdaptiveDemandOptions options, LongSupplier nanoClock) {
+        return Mono.create(sink -> {
+            var subscriber = new AdaptiveDemandSubscriber<T>(handler, options, nanoClock, sink);
+            sink.onCancel(subscriber);
+            source.subscribe(subscriber);
+        });
+    }
+
+    //Los valores se leen desde el hilo que entrega los elementos
+    public int currentDemand() {
+        return (int) demand;
+    }
+
+    public double averageProcessingNanos() {
+        return averageNanos;
+    }
+
+    public long processed() {
+        return processed;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        topUp();
+    }
+
+    @Override
+    protected void hookOnNext(T value) {
+        outstanding--;
+        var start = nanoClock.getAsLong();
+        handler.accept(value);
+        var elapsed = nanoClock.getAsLong() - start;
+        processed++;
+
+        averageNanos = processed == 1
+                ? elapsed
+                : averageNanos + options.getSmoothing() * (elapsed - averageNanos);
+        adjust();
+        topUp();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        if (completion != null)
+            completion.success();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        if (completion != null)
+            completion.error(throwable);
+        else
+            super.hookOnError(throwable);
+    }
+
+    private void adjust() {
+        sinceDecrease++;
+        if (demand * averageNanos > targetNanos) {
+            if (sinceDecrease >= demand) {
+                demand = clamp(demand * options.getDecreaseFactor());
+                sinceDecrease = 0;
+            }
+        } else {
+            demand = clamp(demand + options.getAdditiveIncrease() / demand);
+        }
+    }
+
+    private void topUp() {
+        var missing = (long) demand - outstanding;
+        if (missing > 0 && missing >= Math.max(1, (long) demand / 4)) {
+            outstanding += missing;
+            request(missing);
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(options.getMinDemand(), Math.min(options.getMaxDemand(), value));
+    }
+}
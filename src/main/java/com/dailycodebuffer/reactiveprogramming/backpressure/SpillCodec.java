@@ -0,0 +1,38 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryFormat;
+
+import java.nio.ByteBuffer;
+
+//Cómo se escribe un elemento al archivo de SpillingBuffer y cómo se lee de vuelta
+public interface SpillCodec<T> {
+
+    int size(T value);
+
+    void write(T value, ByteBuffer buffer);
+
+    //buffer trae exactamente los bytes de un elemento
+    T read(ByteBuffer buffer);
+
+    //Book, BookInfo o Review en el formato binario de BookBinaryFormat
+    static <T> SpillCodec<T> binary(Class<T> type) {
+        if (!BookBinaryFormat.supports(type))
+            throw new IllegalArgumentException("Unsupported type " + type);
+        return new SpillCodec<>() {
+            @Override
+            public int size(T value) {
+                return BookBinaryFormat.frameSize(value);
+            }
+
+            @Override
+            public void write(T value, ByteBuffer buffer) {
+                BookBinaryFormat.writeFrame(value, buffer);
+            }
+
+            @Override
+            public T read(ByteBuffer buffer) {
+                return type.cast(BookBinaryFormat.readFrame(buffer));
+            }
+        };
+    }
+}
@@ -0,0 +1,271 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+//Cola sin límite que guarda hasta memoryCapacity elementos en memoria y el resto en un
+//archivo de solo agregar, registros [largo:int][bytes del codec]. Para mantener el orden,
+//desde que empieza a escribir al archivo todo lo nuevo va al archivo hasta que se vacía.
+//Cuando la parte en memoria se vacía se vuelve a llenar leyendo del archivo, y cuando el
+//archivo se termina de leer se trunca para reutilizarlo. El archivo se crea recién con el
+//primer elemento que no cabe en memoria.
+//Un productor y un consumidor (el Sink unicast de SpillingBuffer); los métodos son
+//synchronized porque los dos pueden estar en hilos distintos
+class SpillQueue<T> extends AbstractQueue<T> {
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final SpillCodec<T> codec;
+    private final SpillingBuffer.Metrics metrics;
+
+    private final ArrayDeque<T> memory = new ArrayDeque<>();
+    private FileChannel channel;
+    private Path file;
+    private ByteBuffer writeBuffer;
+    private ByteBuffer readBuffer;
+    private long writePosition;
+    private long readPosition;
+    private long spilled;
+    private long spilledBytes;
+
+    SpillQueue(int memoryCapacity, Path directory, SpillCodec<T> codec, SpillingBuffer.Metrics metrics) {
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.codec = codec;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized boolean offer(T value) {
+        if (spilled == 0 && memory.size() < memoryCapacity) {
+            memory.add(value);
+            return true;
+        }
+        try {
+            spill(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill to " + file, e);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized T poll() {
+        refillIfEmpty();
+        return memory.poll();
+    }
+
+    @Override
+    public synchronized T peek() {
+        refillIfEmpty();
+        return memory.peek();
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, memory.size() + spilled);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return memory.isEmpty() && spilled == 0;
+    }
+
+    //Sin leer lo que está en el archivo
+    @Override
+    public synchronized void clear() {
+        memory.clear();
+        discardSpill();
+    }
+
+    //Iterador sobre una copia de la cola completa, incluida la parte en el archivo. Para
+    //armarla se saca todo en orden y se vuelve a meter, así que cuesta leer y reescribir lo
+    //que esté en el archivo: sirve para toString, contains y depuración, no para el camino
+    //del Sink (que solo usa offer, poll, peek, size y clear)
+    @Override
+    public synchronized Iterator<T> iterator() {
+        var snapshot = drain();
+        snapshot.forEach(this::offer);
+        var iterator = snapshot.iterator();
+        return new Iterator<>() {
+            private T last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+                SpillQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    //Igual que iterator(): saca todo, quita el primero igual a value y vuelve a meter el resto
+    @Override
+    public synchronized boolean remove(Object value) {
+        var all = drain();
+        var removed = all.remove(value);
+        all.forEach(this::offer);
+        return removed;
+    }
+
+    //Borra el archivo. Lo llama SpillingBuffer al terminar o cancelar
+    synchronized void close() {
+        memory.clear();
+        discardSpill();
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete spill file " + file, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private List<T> drain() {
+        var all = new ArrayList<T>(size());
+        T value;
+        while ((value = poll()) != null)
+            all.add(value);
+        return all;
+    }
+
+    private void spill(T value) throws IOException {
+        if (channel == null)
+            open();
+        var size = codec.size(value);
+        var recordSize = Integer.BYTES + size;
+        if (writeBuffer.remaining() < recordSize)
+            flushWrites();
+        var buffer = recordSize <= writeBuffer.capacity() ? writeBuffer : ByteBuffer.allocate(recordSize);
+        buffer.putInt(size);
+        codec.write(value, buffer);
+        if (buffer != writeBuffer) {
+            buffer.flip();
+            writePosition += write(buffer, writePosition);
+        }
+        spilled++;
+        spilledBytes += recordSize;
+        metrics.spilled(recordSize);
+    }
+
+    private void refillIfEmpty() {
+        if (!memory.isEmpty() || spilled == 0)
+            return;
+        try {
+            refill();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spill file " + file, e);
+        }
+    }
+
+    private void refill() throws IOException {
+        flushWrites();
+        while (memory.size() < memoryCapacity && spilled > 0) {
+            if (!hasRecord()) {
+                load();
+                continue;
+            }
+            var size = readBuffer.getInt();
+            var record = readBuffer.slice();
+            record.limit(size);
+            memory.add(codec.read(record));
+            readBuffer.position(readBuffer.position() + size);
+            spilled--;
+            spilledBytes -= Integer.BYTES + size;
+            metrics.drained(Integer.BYTES + size, 1);
+        }
+        if (spilled == 0)
+            reset();
+    }
+
+    private boolean hasRecord() {
+        return readBuffer.remaining() >= Integer.BYTES
+                && readBuffer.remaining() >= Integer.BYTES + readBuffer.getInt(readBuffer.position());
+    }
+
+    //Trae más bytes del archivo. Si el registro pendiente no cabe en el buffer se agranda
+    private void load() throws IOException {
+        if (readBuffer.remaining() >= Integer.BYTES) {
+            var needed = Integer.BYTES + readBuffer.getInt(readBuffer.position());
+            if (needed > readBuffer.capacity()) {
+                readBuffer = ByteBuffer.allocate(needed).put(readBuffer);
+                readBuffer.flip();
+            }
+        }
+        readBuffer.compact();
+        var read = channel.read(readBuffer, readPosition);
+        readBuffer.flip();
+        if (read <= 0)
+            throw new IOException("Spill file ended before all records were read");
+        readPosition += read;
+    }
+
+    private void flushWrites() throws IOException {
+        if (writeBuffer == null || writeBuffer.position() == 0)
+            return;
+        writeBuffer.flip();
+        writePosition += write(writeBuffer, writePosition);
+        writeBuffer.clear();
+    }
+
+    private int write(ByteBuffer buffer, long position) throws IOException {
+        var written = 0;
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+        return written;
+    }
+
+    private void open() throws IOException {
+        file = Files.createTempFile(directory, "spill-", ".bin");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeBuffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+        readBuffer = ByteBuffer.allocate(IO_BUFFER_SIZE).flip();
+    }
+
+    //El archivo quedó vacío: se trunca y se vuelve a escribir desde el principio
+    private void reset() throws IOException {
+        channel.truncate(0);
+        writePosition = 0;
+        readPosition = 0;
+        readBuffer.clear().flip();
+    }
+
+    private void discardSpill() {
+        metrics.drained(spilledBytes, spilled);
+        spilled = 0;
+        spilledBytes = 0;
+        if (channel != null) {
+            writeBuffer.clear();
+            readBuffer.clear().flip();
+            writePosition = 0;
+            readPosition = 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+//Estrategia de backpressure que no pierde elementos ni falla, entre onBackpressureBuffer
+//(que con límite descarta o falla y sin límite crece el heap) y onBackpressureDrop. Le
+//pide todo al upstream como onBackpressureBuffer, guarda hasta memoryCapacity elementos en
+//memoria y lo que no cabe lo escribe serializado con el SpillCodec a un archivo temporal
+//en directory. Cuando vuelve la demanda se leen de vuelta en el mismo orden.
+//Pensado para exportaciones masivas donde el consumidor se atrasa por ratos:
+//    bookService.getBooks().transform(new SpillingBuffer<>(1000, tmp, SpillCodec.binary(Book.class)))
+//Cada suscripción tiene su propio archivo, que se borra al terminar o cancelar. Las
+//métricas suman todas las suscripciones. El upstream se suscribe aparte para llenar el
+//Sink, así que el Context del downstream se le pasa a mano con contextWrite
+public class SpillingBuffer<T> implements Function<Flux<T>, Flux<T>> {
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final SpillCodec<T> codec;
+    private final Metrics metrics = new Metrics();
+
+    public SpillingBuffer(int memoryCapacity, Path directory, SpillCodec<T> codec) {
+        if (memoryCapacity < 1)
+            throw new IllegalArgumentException("memoryCapacity must be positive: " + memoryCapacity);
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.codec = codec;
+    }
+
+    @Override
+    public Flux<T> apply(Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            var queue = new SpillQueue<>(memoryCapacity, directory, codec, metrics);
+            Sinks.Many<T> sink = Sinks.many().unicast().onBackpressureBuffer(queue);
+            var upstream = source.contextWrite(context).subscribe(
+                    value -> {
+                        try {
+                            sink.emitNext(value, Sinks.EmitFailureHandler.FAIL_FAST);
+                        } catch (UncheckedIOException e) {
+                            sink.emitError(e, Sinks.EmitFailureHandler.FAIL_FAST);
+                        }
+                    },
+                    error -> sink.emitError(error, Sinks.EmitFailureHandler.FAIL_FAST),
+                    () -> sink.emitComplete(Sinks.EmitFailureHandler.FAIL_FAST));
+            return sink.asFlux()
+                    .doFinally(signal -> {
+                        upstream.dispose();
+                        queue.close();
+                    });
+        });
+    }
+
+    //Elementos que están ahora en archivos
+    public long spilledElements() {
+        return metrics.elements.get();
+    }
+
+    //Bytes que ocupan ahora esos elementos en los archivos
+    public long spilledBytes() {
+        return metrics.bytes.get();
+    }
+
+    //Máximo de bytes en archivos que se llegó a tener
+    public long peakSpilledBytes() {
+        return metrics.peakBytes.get();
+    }
+
+    //Total de elementos que alguna vez se escribieron a un archivo
+    public long totalSpilled() {
+        return metrics.total.get();
+    }
+
+    static class Metrics {
+        private final AtomicLong elements = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong peakBytes = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+
+        void spilled(int recordBytes) {
+            elements.incrementAndGet();
+            total.incrementAndGet();
+            peakBytes.accumulateAndGet(bytes.addAndGet(recordBytes), Math::max);
+        }
+
+        void drained(long recordBytes, long count) {
+            elements.addAndGet(-count);
+            bytes.addAndGet(-recordBytes);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.dailycodebuffer.reactiveprogramming.batching;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+//Junta llamados individuales por llave en llamados en lote, como DataLoader: las llaves
+//pedidas dentro de una ventana (window) o hasta juntar maxBatchSize se mandan en un solo
+//llamado a batchLoader, y el resultado se reparte a cada Mono que estaba esperando. Si la
+//misma llave se pide dos veces en la ventana va una sola vez en el lote. Las llaves que no
+//vienen en el mapa terminan vacías, y si el lote falla fallan todos sus Monos.
+//La ventana empieza con la primera llave del lote, así que un llamado espera como mucho
+//window antes de salir
+public class RequestCollapser<K, V> {
+
+    private final Function<List<K>, Mono<Map<K, V>>> batchLoader;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Scheduler timer;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private Batch current;
+
+    public RequestCollapser(Function<List<K>, Mono<Map<K, V>>> batchLoader,
+                            int maxBatchSize, Duration window) {
+        this(batchLoader, maxBatchSize, window, Schedulers.parallel());
+    }
+
+    public RequestCollapser(Function<List<K>, Mono<Map<K, V>>> batchLoader,
+                            int maxBatchSize, Duration window, Scheduler timer) {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.timer = timer;
+    }
+
+    //La llave se agrega al lote al suscribirse, no al armar el Mono
+    public Mono<V> load(K key) {
+        return Mono.create(sink -> enqueue(key, sink));
+    }
+
+    //Llamados a load y lotes enviados, para comparar cuánto se redujo el upstream
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long batchCount() {
+        return batches.get();
+    }
+
+    private void enqueue(K key, MonoSink<V> sink) {
+        requests.incrementAndGet();
+        Batch full = null;
+        synchronized (this) {
+            if (current == null) {
+                var batch = new Batch();
+                current = batch;
+                batch.timer = timer.schedule(() -> expire(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            var batch = current;
+            batch.add(key, sink);
+            if (batch.waiters.size() >= maxBatchSize) {
+                current = null;
+                full = batch;
+            }
+        }
+        if (full != null) {
+            full.timer.dispose();
+            dispatch(full);
+        }
+    }
+
+    private void expire(Batch batch) {
+        synchronized (this) {
+            if (current != batch)
+                return;
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        batches.incrementAndGet();
+        var keys = new ArrayList<>(batch.waiters.keySet());
+        Mono.defer(() -> batchLoader.apply(keys))
+                .defaultIfEmpty(Map.of())
+                .subscribe(results -> batch.complete(results), batch::fail);
+    }
+
+    private class Batch {
+        private final Map<K, List<MonoSink<V>>> waiters = new LinkedHashMap<>();
+        private Disposable timer;
+
+        //Con el lock del collapser tomado
+        private void add(K key, MonoSink<V> sink) {
+            waiters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(sink);
+        }
+
+        private void complete(Map<K, V> results) {
+            waiters.forEach((key, sinks) -> {
+                var value = results.get(key);
+                for (MonoSink<V> sink : sinks) {
+                    if (value == null)
+                        sink.success();
+                    else
+                        sink.success(value);
+                }
+            });
+        }
+
+        private void fail(Throwable throwable) {
+            waiters.values().forEach(sinks -> sinks.forEach(sink -> sink.error(throwable)));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+//BookInfoService sobre una fuente bloqueante. Cada llamado corre en el scheduler (por
+//defecto el de virtual threads), nunca en el hilo que se suscribe, así no se bloquea el
+//event loop
+public class BlockingBookInfoService extends BookInfoService {
+
+    private final BlockingBookInfoSource source;
+    private final Scheduler scheduler;
+
+    public BlockingBookInfoService(BlockingBookInfoSource source) {
+        this(source, VirtualThreads.scheduler());
+    }
+
+    public BlockingBookInfoService(BlockingBookInfoSource source, Scheduler scheduler) {
+        this.source = source;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return Flux.defer(() -> Flux.fromIterable(source.findAll()))
+                .subscribeOn(scheduler);
+    }
+
+    //Vacío si la fuente no tiene el libro
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return Mono.fromCallable(() -> source.findById(bookId).orElse(null))
+                .subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,15 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+
+import java.util.List;
+import java.util.Optional;
+
+//Fuente bloqueante de libros (un cliente JDBC o HTTP sincrónico). BlockingBookInfoService
+//la adapta a BookInfoService
+public interface BlockingBookInfoSource {
+
+    List<BookInfo> findAll();
+
+    Optional<BookInfo> findById(long bookId);
+}
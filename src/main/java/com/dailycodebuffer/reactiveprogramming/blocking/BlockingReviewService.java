@@ -0,0 +1,39 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+//ReviewService sobre una fuente bloqueante, igual que BlockingBookInfoService
+public class BlockingReviewService extends ReviewService {
+
+    private final BlockingReviewSource source;
+    private final Scheduler scheduler;
+
+    public BlockingReviewService(BlockingReviewSource source) {
+        this(source, VirtualThreads.scheduler());
+    }
+
+    public BlockingReviewService(BlockingReviewSource source, Scheduler scheduler) {
+        this.source = source;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Flux<Review> getReviews(long bookId) {
+        return Flux.defer(() -> Flux.fromIterable(source.findByBookId(bookId)))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Map<Long, List<Review>>> getReviewsForBooks(Collection<Long> bookIds) {
+        return Mono.fromCallable(() -> source.findByBookIds(bookIds))
+                .subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,25 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Fuente bloqueante de reviews. BlockingReviewService la adapta a ReviewService
+public interface BlockingReviewSource {
+
+    List<Review> findByBookId(long bookId);
+
+    //Los backends que tengan consulta en lote la deberían sobrescribir
+    default Map<Long, List<Review>> findByBookIds(Collection<Long> bookIds) {
+        Map<Long, List<Review>> reviewsByBook = new LinkedHashMap<>();
+        for (Long bookId : bookIds) {
+            var reviews = findByBookId(bookId);
+            if (!reviews.isEmpty())
+                reviewsByBook.put(bookId, reviews);
+        }
+        return reviewsByBook;
+    }
+}
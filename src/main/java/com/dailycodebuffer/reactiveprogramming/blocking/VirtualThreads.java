@@ -0,0 +1,63 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Scheduler de Reactor sobre virtual threads (JDK 21+): un hilo virtual por tarea, así
+//un llamado bloqueante (JDBC, HTTP) solo ocupa unos KB de stack mientras espera y se
+//pueden tener decenas de miles en vuelo. boundedElastic en cambio usa hilos de plataforma
+//y tiene un tope de 10 por core.
+//El proyecto compila con 17 (ver java.version en el pom), así que el executor se busca por
+//reflexión y los virtual threads se usan si el JVM que corre es 21+. En un JDK sin virtual
+//threads se usa un boundedElastic con el mismo nombre
+public final class VirtualThreads {
+
+    private static final Method EXECUTOR_FACTORY = executorFactory();
+
+    private static volatile Scheduler shared;
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return EXECUTOR_FACTORY != null;
+    }
+
+    //Scheduler compartido para los adaptadores bloqueantes, se crea la primera vez
+    public static Scheduler scheduler() {
+        var scheduler = shared;
+        if (scheduler == null) {
+            synchronized (VirtualThreads.class) {
+                scheduler = shared;
+                if (scheduler == null)
+                    shared = scheduler = newScheduler("virtual");
+            }
+        }
+        return scheduler;
+    }
+
+    public static Scheduler newScheduler(String name) {
+        if (EXECUTOR_FACTORY == null)
+            return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                    Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, name);
+        try {
+            var executor = (ExecutorService) EXECUTOR_FACTORY.invoke(null);
+            return Schedulers.fromExecutorService(executor, name);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor, o null si el JDK no lo tiene
+    private static Method executorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
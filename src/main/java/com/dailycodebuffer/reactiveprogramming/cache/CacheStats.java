@@ -0,0 +1,12 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import lombok.Value;
+
+//Foto de los contadores de un cache en un momento dado
+@Value
+public class CacheStats {
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+}
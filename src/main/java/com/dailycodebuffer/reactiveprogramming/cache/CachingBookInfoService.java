@@ -0,0 +1,120 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Decorador de BookInfoService que guarda en memoria el resultado de getBookById.
+//Lo que se guarda es el Mono con cache(), no el BookInfo, así que si llegan varios
+//llamados al mismo id mientras el primero sigue en vuelo todos se subscriben al mismo
+//llamado al servicio real (single-flight). Si el llamado falla se saca del cache para que
+//el siguiente lo intente de nuevo. El tamaño se limita sacando el menos usado (LRU) y cada
+//entrada vence ttl después de creada
+public class CachingBookInfoService extends BookInfoService {
+
+    private final BookInfoService delegate;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<Long, CachedBook> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingBookInfoService(BookInfoService delegate, int maxSize, Duration ttl) {
+        this(delegate, maxSize, ttl, Clock.systemUTC());
+    }
+
+    CachingBookInfoService(BookInfoService delegate, int maxSize, Duration ttl, Clock clock) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedBook> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //El catálogo completo no se guarda, solo las búsquedas por id
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return delegate.getBooks();
+    }
+
+    @Override
+    public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+        return delegate.getBooksPage(afterBookId, pageSize);
+    }
+
+    //defer para que la búsqueda en el cache pase al momento de la subscripción y no
+    //cuando se arma el Mono
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return Mono.defer(() -> lookup(bookId).book);
+    }
+
+    public void invalidate(long bookId) {
+        synchronized (entries) {
+            entries.remove(bookId);
+        }
+    }
+
+    public CacheStats stats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    private CachedBook lookup(long bookId) {
+        var now = clock.instant();
+        synchronized (entries) {
+            var cached = entries.get(bookId);
+            if (cached != null && now.isBefore(cached.expiresAt)) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            if (cached != null) {
+                entries.remove(bookId);
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            var fresh = new CachedBook(bookId, now.plus(ttl));
+            entries.put(bookId, fresh);
+            return fresh;
+        }
+    }
+
+    //Solo se saca la entrada si sigue siendo la misma, por si otro llamado ya la reemplazó
+    private void discard(long bookId, CachedBook failed) {
+        synchronized (entries) {
+            entries.remove(bookId, failed);
+        }
+    }
+
+    private class CachedBook {
+        private final Instant expiresAt;
+        private final Mono<BookInfo> book;
+
+        private CachedBook(long bookId, Instant expiresAt) {
+            this.expiresAt = expiresAt;
+            this.book = Mono.defer(() -> delegate.getBookById(bookId))
+                    .doOnError(throwable -> discard(bookId, this))
+                    .cache();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Decorador de ReviewService con stale-while-revalidate. Mientras una entrada tenga menos
+//de softTtl se entrega tal cual. Entre softTtl y hardTtl se sigue entregando la lista
+//guardada de inmediato, pero se lanza en segundo plano un solo llamado al servicio real
+//para refrescarla. Después de hardTtl la entrada ya no sirve y el llamado vuelve a
+//esperar al servicio real. Un primer llamado que sigue en vuelo también vence a los
+//hardTtl desde que empezó, así un llamado colgado no deja la llave tomada para siempre.
+//El número de libros guardados se limita con LRU
+@Slf4j
+public class CachingReviewService extends ReviewService {
+
+    private final ReviewService delegate;
+    private final Duration softTtl;
+    private final Duration hardTtl;
+    private final Clock clock;
+    private final Scheduler refreshScheduler;
+    private final Map<Long, CachedReviews> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public CachingReviewService(ReviewService delegate, int maxEntries,
+                                Duration softTtl, Duration hardTtl) {
+        this(delegate, maxEntries, softTtl, hardTtl, Clock.systemUTC(), Schedulers.boundedElastic());
+    }
+
+    CachingReviewService(ReviewService delegate, int maxEntries, Duration softTtl,
+                         Duration hardTtl, Clock clock, Scheduler refreshScheduler) {
+        if (softTtl.compareTo(hardTtl) > 0)
+            throw new IllegalArgumentException("softTtl must not be greater than hardTtl");
+        this.delegate = delegate;
+        this.softTtl = softTtl;
+        this.hardTtl = hardTtl;
+        this.clock = clock;
+        this.refreshScheduler = refreshScheduler;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedReviews> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Flux<Review> getReviews(long bookId) {
+        return Mono.defer(() -> lookup(bookId).reviews)
+                .flatMapIterable(reviews -> reviews);
+    }
+
+    //Los lotes van directo al servicio real, el cache es para el camino por id
+    @Override
+    public Mono<Map<Long, List<Review>>> getReviewsForBooks(Collection<Long> bookIds) {
+        return delegate.getReviewsForBooks(bookIds);
+    }
+
+    public void invalidate(long bookId) {
+        synchronized (entries) {
+            entries.remove(bookId);
+        }
+    }
+
+    public CacheStats stats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    //El refresco se lanza por fuera del bloque sincronizado para no tener el lock mientras
+    //se subscribe al servicio real
+    private CachedReviews lookup(long bookId) {
+        var now = clock.instant();
+        CachedReviews cached;
+        boolean startRefresh;
+        synchronized (entries) {
+            cached = entries.get(bookId);
+            if (cached == null || !cached.isUsable(now)) {
+                if (cached != null) {
+                    entries.remove(bookId);
+                    evictions.incrementAndGet();
+                }
+                misses.incrementAndGet();
+                var loading = new CachedReviews(bookId);
+                entries.put(bookId, loading);
+                return loading;
+            }
+            hits.incrementAndGet();
+            startRefresh = cached.isStale(now) && cached.refreshing.compareAndSet(false, true);
+        }
+        if (startRefresh)
+            refresh(bookId, cached);
+        return cached;
+    }
+
+    //Si el refresco falla se deja la entrada vieja para que la siga sirviendo hasta hardTtl
+    //y se permite otro intento en el siguiente llamado
+    private void refresh(long bookId, CachedReviews stale) {
+        refreshes.incrementAndGet();
+        Flux.defer(() -> delegate.getReviews(bookId))
+                .collectList()
+                .subscribeOn(refreshScheduler)
+                .subscribe(
+                        reviews -> {
+                            synchronized (entries) {
+                                entries.replace(bookId, stale,
+                                        new CachedReviews(reviews, clock.instant()));
+                            }
+                        },
+                        throwable -> {
+                            log.warn("Refresh of reviews for book " + bookId + " failed: " + throwable);
+                            stale.refreshing.set(false);
+                        });
+    }
+
+    private void discard(long bookId, CachedReviews failed) {
+        synchronized (entries) {
+            entries.remove(bookId, failed);
+        }
+    }
+
+    private class CachedReviews {
+        private final Mono<List<Review>> reviews;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final Instant createdAt;
+        //null mientras el primer llamado sigue en vuelo
+        private volatile Instant loadedAt;
+
+        //Primer llamado: se comparte entre todos los que lleguen mientras está en vuelo
+        private CachedReviews(long bookId) {
+            this.createdAt = clock.instant();
+            this.reviews = Flux.defer(() -> delegate.getReviews(bookId))
+                    .collectList()
+                    .doOnNext(loaded -> loadedAt = clock.instant())
+                    .doOnError(throwable -> discard(bookId, this))
+                    .cache();
+        }
+
+        private CachedReviews(List<Review> reviews, Instant loadedAt) {
+            this.reviews = Mono.just(reviews);
+            this.createdAt = loadedAt;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isUsable(Instant now) {
+            var loaded = loadedAt;
+            return now.isBefore((loaded != null ? loaded : createdAt).plus(hardTtl));
+        }
+
+        private boolean isStale(Instant now) {
+            var loaded = loadedAt;
+            return loaded != null && !now.isBefore(loaded.plus(softTtl));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.dailycodebuffer.reactiveprogramming.codec;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//Decoder de BookBinaryFormat, para clientes WebClient y para los tests. Los frames de un
+//stream pueden llegar partidos entre buffers: cada frame se entrega apenas llegan todos
+//sus bytes y lo que sobra se guarda para el buffer siguiente, así un stream largo se lee
+//a medida que llega. maxInMemorySize limita el tamaño de un frame, no el del stream
+public class BookBinaryDecoder extends AbstractDataBufferDecoder<Object> {
+
+    public BookBinaryDecoder() {
+        super(BookBinaryFormat.MIME_TYPE);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return BookBinaryFormat.supports(elementType.toClass()) && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType,
+                               @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return Flux.defer(() -> {
+            var splitter = new FrameSplitter(getMaxInMemorySize());
+            return Flux.from(input)
+                    .concatMapIterable(splitter::split)
+                    .concatWith(Flux.defer(splitter::finish))
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    @Override
+    public Object decode(DataBuffer buffer, ResolvableType targetType,
+                         @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        try {
+            return BookBinaryFormat.readFrame(buffer.asByteBuffer());
+        } catch (RuntimeException e) {
+            throw new DecodingException("Invalid book binary payload", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    //Estado de una suscripción: los bytes recibidos que todavía no forman un frame completo.
+    //pending queda siempre en modo escritura entre un buffer y otro
+    private static class FrameSplitter {
+
+        private final int maxFrameSize;
+        private ByteBuffer pending = ByteBuffer.allocate(1024);
+
+        private FrameSplitter(int maxFrameSize) {
+            this.maxFrameSize = maxFrameSize;
+        }
+
+        private List<Object> split(DataBuffer buffer) {
+            try {
+                append(buffer.asByteBuffer());
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            pending.flip();
+            var frames = new ArrayList<>();
+            try {
+                while (hasCompleteFrame())
+                    frames.add(BookBinaryFormat.readFrame(pending));
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
+                throw new DecodingException("Invalid book binary payload", e);
+            } finally {
+                pending.compact();
+            }
+            return frames;
+        }
+
+        //Al terminar el stream no pueden quedar bytes de un frame a medias
+        private Flux<Object> finish() {
+            if (pending.position() > 0)
+                return Flux.error(new DecodingException("Invalid book binary payload: truncated frame"));
+            return Flux.empty();
+        }
+
+        private void append(ByteBuffer bytes) {
+            if (pending.remaining() < bytes.remaining()) {
+                var grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                        pending.position() + bytes.remaining()));
+                pending.flip();
+                pending = grown.put(pending);
+            }
+            pending.put(bytes);
+        }
+
+        //Mira el largo del frame sin moverse de la posición. Si el frame no cabe en
+        //maxFrameSize se corta aunque todavía no hayan llegado sus bytes
+        private boolean hasCompleteFrame() {
+            var position = pending.position();
+            long bodySize = 0;
+            for (int i = 0; ; i++) {
+                if (position + i >= pending.limit())
+                    return false;
+                if (i == 5)
+                    throw new IllegalArgumentException("Malformed frame length");
+                var b = pending.get(position + i);
+                bodySize |= (long) (b & 0x7F) << (7 * i);
+                if ((b & 0x80) == 0) {
+                    var frameSize = i + 1 + bodySize;
+                    if (maxFrameSize >= 0 && frameSize > maxFrameSize)
+                        throw new DataBufferLimitException(
+                                "Book binary frame of " + frameSize + " bytes exceeds the limit of "
+                                        + maxFrameSize + " bytes");
+                    return pending.limit() - position >= frameSize;
+                }
+            }
+        }
+    }
+}
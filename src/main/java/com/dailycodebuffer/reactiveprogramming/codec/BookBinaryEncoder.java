@@ -0,0 +1,64 @@
+package com.dailycodebuffer.reactiveprogramming.codec;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+//Encoder de WebFlux para BookBinaryFormat. Cada elemento se escribe en un buffer del
+//tamaño exacto pedido al DataBufferFactory del servidor (con Reactor Netty es el pool de
+//Netty). El tipo es de streaming, así que cada libro de un Flux se envía apenas sale
+public class BookBinaryEncoder extends AbstractEncoder<Object> implements HttpMessageEncoder<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(BookBinaryFormat.MEDIA_TYPE_VALUE);
+
+    public BookBinaryEncoder() {
+        super(BookBinaryFormat.MIME_TYPE);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return BookBinaryFormat.supports(elementType.toClass()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, @Nullable MimeType mimeType,
+                                   @Nullable Map<String, Object> hints) {
+        return Flux.from(inputStream)
+                .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, @Nullable MimeType mimeType,
+                                  @Nullable Map<String, Object> hints) {
+        var size = BookBinaryFormat.frameSize(value);
+        var buffer = bufferFactory.allocateBuffer(size);
+        try {
+            //La vista comparte la memoria del buffer: se escribe sin copias intermedias y
+            //al final solo se mueve la posición de escritura
+            BookBinaryFormat.writeFrame(value, buffer.asByteBuffer(0, size));
+            buffer.writePosition(size);
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(MEDIA_TYPE);
+    }
+}
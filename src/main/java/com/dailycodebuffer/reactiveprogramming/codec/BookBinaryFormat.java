@@ -0,0 +1,358 @@
+package com.dailycodebuffer.reactiveprogramming.codec;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import org.springframework.util.MimeType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//Formato binario compacto para Book, BookInfo y Review.
+//Cada valor va en un frame: varint con el largo del resto, un byte con el tipo y los
+//campos. Los ids (long) van como varint zigzag, los textos con su largo en varint (0 es
+//null, n+1 es un texto de n bytes UTF-8) y los ratings como varint de rating*100 cuando
+//eso no pierde precisión (lo normal: 9.1, 8.6) o como double de 8 bytes si no.
+//Dentro de un Book el bookId de cada review se escribe como diferencia con el del libro
+//(casi siempre 0, un byte) y el reviewId como diferencia con el review anterior.
+//Primero se calcula el tamaño exacto para pedir un solo buffer del tamaño justo y después
+//se escribe sobre un ByteBuffer que comparte la memoria de ese buffer
+public final class BookBinaryFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-book-binary";
+    public static final MimeType MIME_TYPE = MimeType.valueOf(MEDIA_TYPE_VALUE);
+
+    private static final byte BOOK = 1;
+    private static final byte BOOK_INFO = 2;
+    private static final byte REVIEW = 3;
+
+    private static final int RATING_SCALE = 100;
+    //Marca de rating escrito como double completo
+    private static final int RAW_RATING = 0;
+
+    private BookBinaryFormat() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return type == Book.class || type == BookInfo.class || type == Review.class;
+    }
+
+    //Tamaño del frame completo, incluyendo el largo del inicio
+    public static int frameSize(Object value) {
+        var bodySize = bodySize(value);
+        return varintSize(bodySize) + bodySize;
+    }
+
+    public static void writeFrame(Object value, ByteBuffer buffer) {
+        writeVarint(buffer, bodySize(value));
+        if (value instanceof Book) {
+            buffer.put(BOOK);
+            writeBook((Book) value, buffer);
+        } else if (value instanceof BookInfo) {
+            buffer.put(BOOK_INFO);
+            writeBookInfo((BookInfo) value, buffer);
+        } else if (value instanceof Review) {
+            buffer.put(REVIEW);
+            writeReview((Review) value, buffer);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + value.getClass());
+        }
+    }
+
+    //Lee todos los frames que haya desde la posición actual
+    public static List<Object> readFrames(ByteBuffer buffer) {
+        var values = new ArrayList<>();
+        while (buffer.hasRemaining())
+            values.add(readFrame(buffer));
+        return values;
+    }
+
+    public static Object readFrame(ByteBuffer buffer) {
+        var bodySize = (int) readVarint(buffer);
+        var end = buffer.position() + bodySize;
+        if (bodySize <= 0 || end > buffer.limit())
+            throw new IllegalArgumentException("Truncated frame");
+        Object value;
+        switch (buffer.get()) {
+            case BOOK:
+                value = readBook(buffer);
+                break;
+            case BOOK_INFO:
+                value = readBookInfo(buffer);
+                break;
+            case REVIEW:
+                value = readReview(buffer);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown frame type");
+        }
+        if (buffer.position() != end)
+            throw new IllegalArgumentException("Corrupted frame");
+        return value;
+    }
+
+    private static int bodySize(Object value) {
+        if (value instanceof Book)
+            return 1 + bookSize((Book) value);
+        if (value instanceof BookInfo)
+            return 1 + bookInfoSize((BookInfo) value);
+        if (value instanceof Review)
+            return 1 + reviewSize((Review) value);
+        throw new IllegalArgumentException("Unsupported type " + value.getClass());
+    }
+
+    private static int bookSize(Book book) {
+        var bookId = book.getBookInfo() != null ? book.getBookInfo().getBookId() : 0;
+        var size = 1 + (book.getBookInfo() != null ? bookInfoSize(book.getBookInfo()) : 0);
+        var reviews = book.getReviews();
+        if (reviews == null)
+            return size + 1;
+        size += varintSize(reviews.size() + 1L);
+        long previousReviewId = 0;
+        for (var review : reviews) {
+            size += zigzagSize(review.getReviewId() - previousReviewId)
+                    + zigzagSize(review.getBookId() - bookId)
+                    + ratingSize(review.getRatings())
+                    + stringSize(review.getComments());
+            previousReviewId = review.getReviewId();
+        }
+        return size;
+    }
+
+    private static void writeBook(Book book, ByteBuffer buffer) {
+        var bookInfo = book.getBookInfo();
+        buffer.put((byte) (bookInfo != null ? 1 : 0));
+        if (bookInfo != null)
+            writeBookInfo(bookInfo, buffer);
+        var bookId = bookInfo != null ? bookInfo.getBookId() : 0;
+        var reviews = book.getReviews();
+        if (reviews == null) {
+            writeVarint(buffer, 0);
+            return;
+        }
+        writeVarint(buffer, reviews.size() + 1L);
+        long previousReviewId = 0;
+        for (var review : reviews) {
+            writeZigzag(buffer, review.getReviewId() - previousReviewId);
+            writeZigzag(buffer, review.getBookId() - bookId);
+            writeRating(buffer, review.getRatings());
+            writeString(buffer, review.getComments());
+            previousReviewId = review.getReviewId();
+        }
+    }
+
+    private static Book readBook(ByteBuffer buffer) {
+        var bookInfo = buffer.get() == 1 ? readBookInfo(buffer) : null;
+        var bookId = bookInfo != null ? bookInfo.getBookId() : 0;
+        var count = readVarint(buffer);
+        if (count == 0)
+            return new Book(bookInfo, null);
+        var reviews = new ArrayList<Review>((int) Math.min(count - 1, buffer.remaining()));
+        long reviewId = 0;
+        for (long i = 1; i < count; i++) {
+            reviewId += readZigzag(buffer);
+            reviews.add(new Review(reviewId, bookId + readZigzag(buffer),
+                    readRating(buffer), readString(buffer)));
+        }
+        return new Book(bookInfo, reviews);
+    }
+
+    private static int bookInfoSize(BookInfo bookInfo) {
+        return zigzagSize(bookInfo.getBookId())
+                + stringSize(bookInfo.getTitle())
+                + stringSize(bookInfo.getAuthor())
+                + stringSize(bookInfo.getISBN());
+    }
+
+    private static void writeBookInfo(BookInfo bookInfo, ByteBuffer buffer) {
+        writeZigzag(buffer, bookInfo.getBookId());
+        writeString(buffer, bookInfo.getTitle());
+        writeString(buffer, bookInfo.getAuthor());
+        writeString(buffer, bookInfo.getISBN());
+    }
+
+    private static BookInfo readBookInfo(ByteBuffer buffer) {
+        return new BookInfo(readZigzag(buffer), readString(buffer),
+                readString(buffer), readString(buffer));
+    }
+
+    private static int reviewSize(Review review) {
+        return zigzagSize(review.getReviewId())
+                + zigzagSize(review.getBookId())
+                + ratingSize(review.getRatings())
+                + stringSize(review.getComments());
+    }
+
+    private static void writeReview(Review review, ByteBuffer buffer) {
+        writeZigzag(buffer, review.getReviewId());
+        writeZigzag(buffer, review.getBookId());
+        writeRating(buffer, review.getRatings());
+        writeString(buffer, review.getComments());
+    }
+
+    private static Review readReview(ByteBuffer buffer) {
+        return new Review(readZigzag(buffer), readZigzag(buffer),
+                readRating(buffer), readString(buffer));
+    }
+
+    //Ratings: varint(zigzag(rating*100) + 1), o 0 seguido del double
+    private static long scaledRating(double rating) {
+        var scaled = Math.round(rating * RATING_SCALE);
+        if (Math.abs(scaled) < (1L << 52) && (double) scaled / RATING_SCALE == rating)
+            return scaled;
+        return Long.MIN_VALUE;
+    }
+
+    private static int ratingSize(double rating) {
+        var scaled = scaledRating(rating);
+        return scaled == Long.MIN_VALUE ? 1 + Double.BYTES : varintSize(zigzag(scaled) + 1);
+    }
+
+    private static void writeRating(ByteBuffer buffer, double rating) {
+        var scaled = scaledRating(rating);
+        if (scaled == Long.MIN_VALUE) {
+            writeVarint(buffer, RAW_RATING);
+            buffer.putDouble(rating);
+        } else {
+            writeVarint(buffer, zigzag(scaled) + 1);
+        }
+    }
+
+    private static double readRating(ByteBuffer buffer) {
+        var encoded = readVarint(buffer);
+        if (encoded == RAW_RATING)
+            return buffer.getDouble();
+        return (double) unzigzag(encoded - 1) / RATING_SCALE;
+    }
+
+    //Textos: varint(largo UTF-8 + 1) y los bytes, 0 para null. Se codifica a mano para
+    //no crear un byte[] intermedio por cada texto
+    private static int stringSize(String value) {
+        if (value == null)
+            return 1;
+        var length = utf8Length(value);
+        return varintSize(length + 1L) + length;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            writeVarint(buffer, 0);
+            return;
+        }
+        writeVarint(buffer, utf8Length(value) + 1L);
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                var codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                //Un surrogate suelto se escribe como '?', igual que String.getBytes
+                if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                    continue;
+                }
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var encoded = readVarint(buffer);
+        if (encoded == 0)
+            return null;
+        var length = (int) (encoded - 1);
+        if (length > buffer.remaining())
+            throw new IllegalArgumentException("Truncated string");
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            var bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int zigzagSize(long value) {
+        return varintSize(zigzag(value));
+    }
+
+    private static void writeZigzag(ByteBuffer buffer, long value) {
+        writeVarint(buffer, zigzag(value));
+    }
+
+    private static long readZigzag(ByteBuffer buffer) {
+        return unzigzag(readVarint(buffer));
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            var b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,28 @@
+package com.dailycodebuffer.reactiveprogramming.config;
+
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Los servicios son clases normales (los tests los crean con new), acá se registran como
+//beans para que los usen los controllers
+@Configuration
+public class BookConfiguration {
+
+    @Bean
+    public BookInfoService bookInfoService() {
+        return new BookInfoService();
+    }
+
+    @Bean
+    public ReviewService reviewService() {
+        return new ReviewService();
+    }
+
+    @Bean
+    public BookService bookService(BookInfoService bookInfoService, ReviewService reviewService) {
+        return new BookService(bookInfoService, reviewService);
+    }
+}
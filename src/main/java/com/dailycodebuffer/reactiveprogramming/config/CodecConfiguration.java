@@ -0,0 +1,19 @@
+package com.dailycodebuffer.reactiveprogramming.config;
+
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryDecoder;
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryEncoder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+//Registra el codec binario. JSON sigue siendo el default, el binario solo se usa cuando
+//el cliente lo pide con Accept: application/x-book-binary
+@Configuration
+public class CodecConfiguration implements WebFluxConfigurer {
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new BookBinaryEncoder());
+        configurer.customCodecs().register(new BookBinaryDecoder());
+    }
+}
@@ -0,0 +1,58 @@
+package com.dailycodebuffer.reactiveprogramming.controller;
+
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryFormat;
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.exception.BookException;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//GET /books devuelve el Flux de BookService tal cual como NDJSON o Server-Sent Events.
+//Con esos dos formatos WebFlux escribe y hace flush de cada libro apenas sale, y solo le
+//pide más elementos al Flux cuando Netty puede seguir escribiendo en el socket, así que el
+//backpressure de TCP llega hasta BookService y nunca se arma el catálogo en memoria.
+//También se puede pedir en formato binario (BookBinaryFormat), que es de streaming igual
+@Slf4j
+@RestController
+public class BookController {
+
+    private final BookService bookService;
+
+    public BookController(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @GetMapping(value = "/books",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    BookBinaryFormat.MEDIA_TYPE_VALUE})
+    public Flux<Book> getBooks() {
+        return bookService.getBooks();
+    }
+
+    //JSON va primero para que sea el default, el binario se negocia con Accept
+    @GetMapping(value = "/books/{id}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, BookBinaryFormat.MEDIA_TYPE_VALUE})
+    public Mono<Book> getBookById(@PathVariable long id) {
+        return bookService.getBookById(id)
+                .switchIfEmpty(Mono.error(
+                        new ResponseStatusException(HttpStatus.NOT_FOUND, "Book " + id + " not found")));
+    }
+
+    //Si ya se empezó a escribir el stream el status no se puede cambiar y la conexión se
+    //corta, esto aplica a los errores que pasan antes del primer libro
+    @ExceptionHandler(BookException.class)
+    public ResponseEntity<String> handleBookException(BookException exception) {
+        log.error("Exception is :" + exception);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(exception.getMessage());
+    }
+}
@@ -0,0 +1,18 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//Una página del catálogo ordenado por bookId. nextCursor es el bookId del último libro de
+//la página: la siguiente página se pide con los libros de id mayor a ese
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPage {
+    private List<BookInfo> books;
+    private long nextCursor;
+    private boolean hasMore;
+}
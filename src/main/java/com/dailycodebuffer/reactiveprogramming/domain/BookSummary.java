@@ -0,0 +1,114 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import com.dailycodebuffer.reactiveprogramming.stats.QuantileSketch;
+
+//Perfil de ratings de un libro calculado a medida que llegan las reviews, sin guardarlas:
+//cantidad, promedio, mínimo, máximo, varianza (algoritmo de Welford) y percentiles
+//aproximados (QuantileSketch, error relativo del 1%). Dos resúmenes del mismo libro
+//calculados en shards distintos se combinan con merge. Se usa como acumulador mutable en
+//un reduce, por eso add y merge devuelven this
+public class BookSummary {
+
+    static final double PERCENTILE_ACCURACY = 0.01;
+    static final int MAX_SKETCH_BUCKETS = 512;
+
+    private final long bookId;
+    private long count;
+    private double mean;
+    //Suma de los cuadrados de las diferencias con el promedio (Welford)
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private final QuantileSketch sketch;
+
+    public BookSummary(long bookId) {
+        this.bookId = bookId;
+        this.sketch = new QuantileSketch(PERCENTILE_ACCURACY, MAX_SKETCH_BUCKETS);
+    }
+
+    public BookSummary add(Review review) {
+        return add(review.getRatings());
+    }
+
+    public BookSummary add(double rating) {
+        count++;
+        var delta = rating - mean;
+        mean += delta / count;
+        m2 += delta * (rating - mean);
+        min = count == 1 ? rating : Math.min(min, rating);
+        max = count == 1 ? rating : Math.max(max, rating);
+        sketch.add(rating);
+        return this;
+    }
+
+    //Combinación de Chan et al. para promedio y varianza de dos grupos
+    public BookSummary merge(BookSummary other) {
+        if (other.bookId != bookId)
+            throw new IllegalArgumentException("Cannot merge summaries of books "
+                    + bookId + " and " + other.bookId);
+        if (other.count == 0)
+            return this;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+        } else {
+            var total = count + other.count;
+            var delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        sketch.merge(other.sketch);
+        return this;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    //Varianza poblacional
+    public double getVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    public double getSampleVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    //Aproximado, con error relativo de PERCENTILE_ACCURACY
+    public double percentile(double quantile) {
+        return sketch.quantile(quantile);
+    }
+
+    @Override
+    public String toString() {
+        return "BookSummary(bookId=" + bookId + ", count=" + count + ", mean=" + getMean()
+                + ", min=" + min + ", max=" + max + ", variance=" + getVariance()
+                + ", p50=" + percentile(0.5) + ", p90=" + percentile(0.9) + ")";
+    }
+}
@@ -0,0 +1,23 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Un cambio en el catálogo publicado por ChangeFeedHub. sequence crece de a uno por cada
+//cambio publicado, así un suscriptor puede detectar que se perdió alguno (por ejemplo
+//cuando su buffer descartó cambios). book o review según el tipo; en los borrados solo
+//vienen los ids
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogChange {
+
+    public enum Type { BOOK_UPSERTED, BOOK_REMOVED, REVIEW_UPSERTED, REVIEW_REMOVED }
+
+    private long sequence;
+    private Type type;
+    private long bookId;
+    private BookInfo book;
+    private Review review;
+}
@@ -0,0 +1,14 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Igual que Book pero con las reviews en columnas (ReviewBatch)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ColumnarBook {
+    private BookInfo bookInfo;
+    private ReviewBatch reviews;
+}
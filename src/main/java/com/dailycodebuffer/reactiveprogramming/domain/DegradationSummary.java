@@ -0,0 +1,17 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//Resumen que entrega getBooksPartial al terminar: cuántos libros salieron y cuáles
+//salieron degradados
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DegradationSummary {
+    private long totalBooks;
+    private List<DegradedBook> degradedBooks;
+}
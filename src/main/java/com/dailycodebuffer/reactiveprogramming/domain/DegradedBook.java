@@ -0,0 +1,18 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Libro que se entregó sin reviews porque el llamado a sus reviews falló o se demoró
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DegradedBook {
+
+    public enum Reason { TIMEOUT, ERROR }
+
+    private long bookId;
+    private Reason reason;
+    private String message;
+}
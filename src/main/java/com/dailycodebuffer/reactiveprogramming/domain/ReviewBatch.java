@@ -0,0 +1,164 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.DoubleStream;
+
+//Reviews de un libro en columnas: long[] de ids, double[] de ratings y los comentarios
+//como bytes UTF-8 pegados uno detrás de otro, que solo se vuelven String cuando se piden.
+//Para promediar o filtrar por rating no se crea ningún objeto por review
+public class ReviewBatch {
+
+    private final long bookId;
+    private final int size;
+    private final long[] reviewIds;
+    private final double[] ratings;
+    private final byte[] comments;
+    //comentario i = comments[commentOffsets[i], commentOffsets[i + 1])
+    private final int[] commentOffsets;
+    private final BitSet nullComments;
+
+    private ReviewBatch(long bookId, int size, long[] reviewIds, double[] ratings,
+                        byte[] comments, int[] commentOffsets, BitSet nullComments) {
+        this.bookId = bookId;
+        this.size = size;
+        this.reviewIds = reviewIds;
+        this.ratings = ratings;
+        this.comments = comments;
+        this.commentOffsets = commentOffsets;
+        this.nullComments = nullComments;
+    }
+
+    public static Builder builder(long bookId) {
+        return new Builder(bookId);
+    }
+
+    public static ReviewBatch of(long bookId, List<Review> reviews) {
+        var builder = new Builder(bookId, reviews.size());
+        for (var review : reviews)
+            builder.add(review.getReviewId(), review.getRatings(), review.getComments());
+        return builder.build();
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long reviewId(int index) {
+        checkIndex(index);
+        return reviewIds[index];
+    }
+
+    public double rating(int index) {
+        checkIndex(index);
+        return ratings[index];
+    }
+
+    //Se decodifica en cada llamado, no se guarda
+    public String comment(int index) {
+        checkIndex(index);
+        if (nullComments.get(index))
+            return null;
+        var start = commentOffsets[index];
+        return new String(comments, start, commentOffsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    public DoubleStream ratings() {
+        return Arrays.stream(ratings, 0, size);
+    }
+
+    public double averageRating() {
+        if (size == 0)
+            return Double.NaN;
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += ratings[i];
+        return sum / size;
+    }
+
+    public Review toReview(int index) {
+        return new Review(reviewId(index), bookId, rating(index), comment(index));
+    }
+
+    //Vuelve a la forma de objetos, para quien necesite List<Review>
+    public List<Review> toReviews() {
+        var reviews = new ArrayList<Review>(size);
+        for (int i = 0; i < size; i++)
+            reviews.add(toReview(i));
+        return reviews;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+
+    //Los arreglos crecen al doble, como un ArrayList, y build() los entrega sin copiar
+    public static class Builder {
+        private final long bookId;
+        private int size;
+        private long[] reviewIds;
+        private double[] ratings;
+        private byte[] comments;
+        private int commentsLength;
+        private int[] commentOffsets;
+        private final BitSet nullComments = new BitSet();
+
+        private Builder(long bookId) {
+            this(bookId, 16);
+        }
+
+        private Builder(long bookId, int expectedSize) {
+            var capacity = Math.max(1, expectedSize);
+            this.bookId = bookId;
+            this.reviewIds = new long[capacity];
+            this.ratings = new double[capacity];
+            this.comments = new byte[capacity * 16];
+            this.commentOffsets = new int[capacity + 1];
+        }
+
+        public Builder add(long reviewId, double rating, String comment) {
+            if (size == reviewIds.length) {
+                var capacity = reviewIds.length * 2;
+                reviewIds = Arrays.copyOf(reviewIds, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                commentOffsets = Arrays.copyOf(commentOffsets, capacity + 1);
+            }
+            reviewIds[size] = reviewId;
+            ratings[size] = rating;
+            if (comment == null) {
+                nullComments.set(size);
+            } else {
+                var bytes = comment.getBytes(StandardCharsets.UTF_8);
+                if (commentsLength + bytes.length > comments.length)
+                    comments = Arrays.copyOf(comments,
+                            Math.max(comments.length * 2, commentsLength + bytes.length));
+                System.arraycopy(bytes, 0, comments, commentsLength, bytes.length);
+                commentsLength += bytes.length;
+            }
+            size++;
+            commentOffsets[size] = commentsLength;
+            return this;
+        }
+
+        public Builder add(Review review) {
+            return add(review.getReviewId(), review.getRatings(), review.getComments());
+        }
+
+        public ReviewBatch build() {
+            return new ReviewBatch(bookId, size, reviewIds, ratings, comments,
+                    commentOffsets, (BitSet) nullComments.clone());
+        }
+    }
+}
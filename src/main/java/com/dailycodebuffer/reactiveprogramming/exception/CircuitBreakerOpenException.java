@@ -0,0 +1,10 @@
+package com.dailycodebuffer.reactiveprogramming.exception;
+
+
+//Se lanza sin llamar al servicio cuando el circuit breaker está abierto. Es un
+//BookException para que quien llama a BookService lo maneje igual que los demás errores
+public class CircuitBreakerOpenException extends BookException {
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
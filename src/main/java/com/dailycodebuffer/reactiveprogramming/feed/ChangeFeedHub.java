@@ -0,0 +1,161 @@
+package com.dailycodebuffer.reactiveprogramming.feed;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.CatalogChange;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Stream caliente (hot) de cambios del catálogo para muchos suscriptores, en vez de que
+//cada uno vuelva a pedir getBooks.
+//Cada suscriptor tiene su propio Sink unicast sobre una cola acotada. publish nunca espera
+//a nadie: ofrece el cambio a la cola de cada suscriptor y si está llena aplica la
+//OverflowPolicy de ese suscriptor. Los suscriptores reciben los cambios en el
+//deliveryScheduler (publishOn), así que uno lento tampoco frena el hilo que publica.
+//Memoria máxima: historySize cambios para replay más bufferSize por suscriptor, más el
+//cambio en vuelo que ya tomó el publishOn y que ninguna política descarta
+public class ChangeFeedHub {
+
+    public static final int DEFAULT_HISTORY_SIZE = 256;
+
+    private final int historySize;
+    private final Scheduler deliveryScheduler;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<CatalogChange> history;
+    private final List<FeedSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private long sequence;
+
+    public ChangeFeedHub() {
+        this(DEFAULT_HISTORY_SIZE, Schedulers.parallel());
+    }
+
+    public ChangeFeedHub(int historySize, Scheduler deliveryScheduler) {
+        this.historySize = historySize;
+        this.deliveryScheduler = deliveryScheduler;
+        this.history = new ArrayDeque<>(historySize);
+    }
+
+    public CatalogChange bookUpserted(BookInfo book) {
+        return publish(CatalogChange.Type.BOOK_UPSERTED, book.getBookId(), book, null);
+    }
+
+    public CatalogChange bookRemoved(long bookId) {
+        return publish(CatalogChange.Type.BOOK_REMOVED, bookId, null, null);
+    }
+
+    public CatalogChange reviewUpserted(Review review) {
+        return publish(CatalogChange.Type.REVIEW_UPSERTED, review.getBookId(), null, review);
+    }
+
+    public CatalogChange reviewRemoved(long bookId, long reviewId) {
+        return publish(CatalogChange.Type.REVIEW_REMOVED, bookId, null, new Review(reviewId, bookId, 0, null));
+    }
+
+    //Solo los cambios publicados desde que se suscribe
+    public Flux<CatalogChange> changes(int bufferSize, OverflowPolicy policy) {
+        return changes(bufferSize, policy, false);
+    }
+
+    //Con replay el suscriptor recibe primero los últimos cambios guardados (como mucho
+    //bufferSize) y después los nuevos, sin huecos ni repetidos
+    public Flux<CatalogChange> changes(int bufferSize, OverflowPolicy policy, boolean replay) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        return Flux.defer(() -> {
+            var subscriber = new FeedSubscriber(bufferSize, policy);
+            synchronized (lock) {
+                if (replay) {
+                    history.stream()
+                            .skip(Math.max(0, history.size() - bufferSize))
+                            .forEach(subscriber.sink::tryEmitNext);
+                }
+                subscribers.add(subscriber);
+            }
+            return subscriber.sink.asFlux()
+                    .doFinally(signal -> subscribers.remove(subscriber))
+                    .publishOn(deliveryScheduler, false, 1);
+        });
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    //Cambios descartados por buffers llenos, sumando todos los suscriptores
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private CatalogChange publish(CatalogChange.Type type, long bookId, BookInfo book, Review review) {
+        synchronized (lock) {
+            var change = new CatalogChange(++sequence, type, bookId, book, review);
+            if (historySize > 0) {
+                if (history.size() == historySize)
+                    history.removeFirst();
+                history.addLast(change);
+            }
+            for (FeedSubscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+            return change;
+        }
+    }
+
+    private class FeedSubscriber {
+        private final ArrayBlockingQueue<CatalogChange> queue;
+        private final Sinks.Many<CatalogChange> sink;
+        private final OverflowPolicy policy;
+
+        private FeedSubscriber(int bufferSize, OverflowPolicy policy) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(queue);
+            this.policy = policy;
+        }
+
+        //Se llama con el lock tomado, así las emisiones al sink están serializadas
+        private void offer(CatalogChange change) {
+            var result = sink.tryEmitNext(change);
+            //Con la cola llena el sink responde FAIL_ZERO_SUBSCRIBER si el suscriptor
+            //todavía no llegó a suscribirse, para nosotros es el mismo caso
+            var full = result == Sinks.EmitResult.FAIL_OVERFLOW
+                    || result == Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER;
+            if (!full) {
+                if (result.isFailure())
+                    subscribers.remove(this);
+                return;
+            }
+            switch (policy) {
+                case DROP_OLDEST:
+                    //La cola es thread-safe, el suscriptor puede estar sacando al mismo tiempo
+                    queue.poll();
+                    dropped.incrementAndGet();
+                    if (sink.tryEmitNext(change).isFailure())
+                        dropped.incrementAndGet();
+                    break;
+                case DROP_LATEST:
+                    dropped.incrementAndGet();
+                    break;
+                case DISCONNECT:
+                    //El sink entrega el error recién cuando la cola está vacía, se vacía
+                    //para desconectar ya
+                    subscribers.remove(this);
+                    dropped.addAndGet(queue.size() + 1L);
+                    queue.clear();
+                    sink.tryEmitError(Exceptions.failWithOverflow(
+                            "Change feed subscriber buffer is full, disconnecting"));
+                    break;
+            }
+        }
+    }
+}
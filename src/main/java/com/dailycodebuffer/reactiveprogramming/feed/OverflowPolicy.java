@@ -0,0 +1,11 @@
+package com.dailycodebuffer.reactiveprogramming.feed;
+
+//Qué hacer cuando el buffer de un suscriptor está lleno y llega otro cambio
+public enum OverflowPolicy {
+    //Se descarta el cambio más viejo del buffer para hacer lugar
+    DROP_OLDEST,
+    //Se descarta el cambio que acaba de llegar
+    DROP_LATEST,
+    //Se desconecta al suscriptor con un error de overflow
+    DISCONNECT
+}
@@ -0,0 +1,110 @@
+package com.dailycodebuffer.reactiveprogramming.index;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+//Índices secundarios sobre el catálogo:
+//- ISBN exacto: hash, O(1)
+//- autor (sin distinguir mayúsculas): hash de autor a ids, O(1) + O(resultados)
+//- prefijo de título: mapa ordenado (skip list) por título normalizado, O(log n) para
+//  encontrar el primero y después se recorre en orden solo lo que se consume
+//Las lecturas no toman locks. Las escrituras se serializan entre sí para que un libro
+//que cambia de ISBN, autor o título se saque de las entradas viejas antes de agregar las
+//nuevas; mientras tanto una lectura puede ver el libro en la versión vieja o la nueva
+public class BookIndex {
+
+    //Separa el título del id en la llave del índice de títulos, para que dos libros con el
+    //mismo título no se pisen
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final Map<Long, BookInfo> byId = new ConcurrentHashMap<>();
+    private final Map<String, BookInfo> byIsbn = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byAuthor = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, BookInfo> byTitle = new ConcurrentSkipListMap<>();
+
+    //Agrega el libro o lo actualiza si el bookId ya estaba
+    public synchronized void put(BookInfo bookInfo) {
+        unindex(byId.put(bookInfo.getBookId(), bookInfo));
+        if (bookInfo.getISBN() != null)
+            byIsbn.put(bookInfo.getISBN(), bookInfo);
+        if (bookInfo.getAuthor() != null)
+            byAuthor.computeIfAbsent(normalize(bookInfo.getAuthor()), author -> ConcurrentHashMap.newKeySet())
+                    .add(bookInfo.getBookId());
+        if (bookInfo.getTitle() != null)
+            byTitle.put(titleKey(bookInfo), bookInfo);
+    }
+
+    public synchronized void remove(long bookId) {
+        unindex(byId.remove(bookId));
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byIsbn.clear();
+        byAuthor.clear();
+        byTitle.clear();
+    }
+
+    public BookInfo byId(long bookId) {
+        return byId.get(bookId);
+    }
+
+    //null si no hay libro con ese ISBN
+    public BookInfo byIsbn(String isbn) {
+        return byIsbn.get(isbn);
+    }
+
+    public Collection<BookInfo> byAuthor(String author) {
+        var bookIds = byAuthor.get(normalize(author));
+        if (bookIds == null)
+            return Set.of();
+        return bookIds.stream()
+                .map(byId::get)
+                .filter(bookInfo -> bookInfo != null)
+                .collect(Collectors.toList());
+    }
+
+    //Vista en orden de título, se recorre de a poco a medida que se consume
+    public Collection<BookInfo> byTitlePrefix(String prefix) {
+        var from = normalize(prefix);
+        return byTitle.subMap(from, true, from + Character.MAX_VALUE, false).values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void unindex(BookInfo previous) {
+        if (previous == null)
+            return;
+        if (previous.getISBN() != null)
+            byIsbn.remove(previous.getISBN(), previous);
+        if (previous.getAuthor() != null) {
+            var author = normalize(previous.getAuthor());
+            var bookIds = byAuthor.get(author);
+            if (bookIds != null) {
+                bookIds.remove(previous.getBookId());
+                if (bookIds.isEmpty())
+                    byAuthor.remove(author, bookIds);
+            }
+        }
+        if (previous.getTitle() != null)
+            byTitle.remove(titleKey(previous), previous);
+    }
+
+    private static String titleKey(BookInfo bookInfo) {
+        return normalize(bookInfo.getTitle()) + KEY_SEPARATOR + bookInfo.getBookId();
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,106 @@
+package com.dailycodebuffer.reactiveprogramming.index;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+//Decorador de BookInfoService que responde las búsquedas por ISBN, autor y prefijo de
+//título desde un BookIndex en vez de recorrer el catálogo. El índice se arma con
+//rebuild() y se mantiene al día con put/remove cuando cambia el catálogo. Las lecturas
+//(getBooks, getBookById) no lo tocan: escribir en el índice toma su lock y serializaría
+//las lecturas concurrentes.
+//rebuild() llena un BookIndex nuevo aparte y lo cambia por el actual solo si la carga
+//termina bien; mientras tanto las búsquedas siguen respondiendo con el índice anterior
+public class IndexedBookInfoService extends BookInfoService {
+
+    private final BookInfoService delegate;
+
+    private volatile BookIndex index;
+    //Índice que está armando rebuild(), null si no hay uno en curso. put/remove también
+    //se le aplican para que no se pierdan al hacer el cambio
+    private volatile BookIndex rebuilding;
+
+    public IndexedBookInfoService(BookInfoService delegate) {
+        this(delegate, new BookIndex());
+    }
+
+    public IndexedBookInfoService(BookInfoService delegate, BookIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    //Vuelve a cargar el índice recorriendo el catálogo completo. Lo que ya no está en el
+    //catálogo sale del índice. Si la carga falla o se cancela queda el índice anterior
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            var fresh = new BookIndex();
+            rebuilding = fresh;
+            return delegate.getBooks()
+                    .doOnNext(fresh::put)
+                    .then(Mono.fromRunnable(() -> index = fresh))
+                    .doFinally(signal -> {
+                        if (rebuilding == fresh)
+                            rebuilding = null;
+                    })
+                    .then();
+        });
+    }
+
+    public void put(BookInfo bookInfo) {
+        index.put(bookInfo);
+        var next = rebuilding;
+        if (next != null)
+            next.put(bookInfo);
+    }
+
+    public void remove(long bookId) {
+        index.remove(bookId);
+        var next = rebuilding;
+        if (next != null)
+            next.remove(bookId);
+    }
+
+    public BookIndex index() {
+        return index;
+    }
+
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return delegate.getBooks();
+    }
+
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return delegate.getBookById(bookId);
+    }
+
+    @Override
+    public Mono<Map<Long, BookInfo>> getBooksByIds(Collection<Long> bookIds) {
+        return delegate.getBooksByIds(bookIds);
+    }
+
+    @Override
+    public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+        return delegate.getBooksPage(afterBookId, pageSize);
+    }
+
+    @Override
+    public Mono<BookInfo> getBookByIsbn(String isbn) {
+        return Mono.fromSupplier(() -> index.byIsbn(isbn));
+    }
+
+    @Override
+    public Flux<BookInfo> getBooksByAuthor(String author) {
+        return Flux.defer(() -> Flux.fromIterable(index.byAuthor(author)));
+    }
+
+    @Override
+    public Flux<BookInfo> getBooksByTitlePrefix(String prefix) {
+        return Flux.defer(() -> Flux.fromIterable(index.byTitlePrefix(prefix)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Histograma de latencias con buckets en potencias de 2 de nanosegundos. Registrar una
+//muestra es un incremento atómico, sin locks ni objetos nuevos. Los percentiles son
+//aproximados: se devuelve el límite superior del bucket
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        var value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMeanNanos() {
+        var samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / samples;
+    }
+
+    public long percentileNanos(double percentile) {
+        var samples = count.sum();
+        if (samples == 0)
+            return 0;
+        var rank = (long) Math.ceil(percentile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return upperBoundOf(i);
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos == 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos) - 1;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : (2L << bucket) - 1;
+    }
+}
@@ -0,0 +1,128 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+//Reemplazo de .log() para los pipelines de BookService. Se aplica con transform() y le
+//pasa los eventos de cada etapa con nombre a un StageListener: subscripción, request,
+//tiempo al primer elemento, tiempo entre elementos, cancelación, fin y error.
+//Solo se crea un objeto por subscripción, nada por elemento.
+//Con withCheckpoints() cada etapa además pone un checkpoint liviano (sin stack trace) con
+//su nombre, que es lo que queda para rastrear errores cuando no está el ReactorDebugAgent
+public class PipelineInstrumentation {
+
+    private static final PipelineInstrumentation NOOP = new PipelineInstrumentation(null);
+
+    private final StageListener listener;
+    private final boolean checkpoints;
+
+    public PipelineInstrumentation(StageListener listener) {
+        this(listener, false);
+    }
+
+    private PipelineInstrumentation(StageListener listener, boolean checkpoints) {
+        this.listener = listener;
+        this.checkpoints = checkpoints;
+    }
+
+    public static PipelineInstrumentation noop() {
+        return NOOP;
+    }
+
+    //Loguea uno de cada sampleRate elementos por etapa; el ciclo de vida solo en DEBUG
+    public static PipelineInstrumentation sampledLogging(long sampleRate) {
+        return new PipelineInstrumentation(new SampledLoggingListener(sampleRate));
+    }
+
+    public static PipelineInstrumentation metrics(StageMetricsRegistry registry) {
+        return new PipelineInstrumentation(registry);
+    }
+
+    public PipelineInstrumentation withCheckpoints() {
+        return new PipelineInstrumentation(listener, true);
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> flux(String stage) {
+        Function<Flux<T>, Flux<T>> checkpoint = checkpoints
+                ? source -> source.checkpoint(stage)
+                : Function.identity();
+        if (listener == null)
+            return checkpoint;
+        return checkpoint.andThen(source -> Flux.defer(() -> {
+            var timing = new StageTiming(stage, listener);
+            return source
+                    .doOnSubscribe(subscription -> timing.subscribed())
+                    .doOnRequest(timing::requested)
+                    .doOnNext(value -> timing.element())
+                    .doOnCancel(timing::cancelled)
+                    .doOnComplete(timing::completed)
+                    .doOnError(timing::failed);
+        }));
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String stage) {
+        Function<Mono<T>, Mono<T>> checkpoint = checkpoints
+                ? source -> source.checkpoint(stage)
+                : Function.identity();
+        if (listener == null)
+            return checkpoint;
+        return checkpoint.andThen(source -> Mono.defer(() -> {
+            var timing = new StageTiming(stage, listener);
+            return source
+                    .doOnSubscribe(subscription -> timing.subscribed())
+                    .doOnRequest(timing::requested)
+                    .doOnNext(value -> timing.element())
+                    .doOnCancel(timing::cancelled)
+                    .doOnSuccess(value -> timing.completed())
+                    .doOnError(timing::failed);
+        }));
+    }
+
+    //Estado de una subscripción: cuándo empezó y cuándo llegó el último elemento
+    private static class StageTiming {
+        private final String stage;
+        private final StageListener listener;
+        private long subscribedAt;
+        private long lastElementAt;
+        private boolean firstSeen;
+
+        private StageTiming(String stage, StageListener listener) {
+            this.stage = stage;
+            this.listener = listener;
+        }
+
+        private void subscribed() {
+            subscribedAt = System.nanoTime();
+            lastElementAt = subscribedAt;
+            listener.onSubscribe(stage);
+        }
+
+        private void requested(long n) {
+            listener.onRequest(stage, n);
+        }
+
+        private void element() {
+            var now = System.nanoTime();
+            if (!firstSeen) {
+                firstSeen = true;
+                listener.onFirstElement(stage, now - subscribedAt);
+            }
+            listener.onElement(stage, now - lastElementAt);
+            lastElementAt = now;
+        }
+
+        private void cancelled() {
+            listener.onCancel(stage);
+        }
+
+        private void completed() {
+            listener.onComplete(stage);
+        }
+
+        private void failed(Throwable throwable) {
+            listener.onError(stage, throwable);
+        }
+    }
+}
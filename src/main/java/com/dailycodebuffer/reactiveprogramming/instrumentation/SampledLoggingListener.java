@@ -0,0 +1,62 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//De los elementos loguea en INFO solo uno de cada sampleRate. Cada etapa lleva su propio
+//contador: uno solo compartido lo incrementarían todas las etapas y todos los hilos en cada
+//elemento, y la instrumentación quedaría serializada en esa línea de caché. Subscripción, fin y cancelación pasan una vez por suscripción, así que con
+//mucho tráfico serían tantas líneas como requests: van en DEBUG. Los errores siempre
+//en ERROR
+@Slf4j
+public class SampledLoggingListener implements StageListener {
+
+    private final long sampleRate;
+    private final Map<String, AtomicLong> elements = new ConcurrentHashMap<>();
+
+    public SampledLoggingListener(long sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @Override
+    public void onSubscribe(String stage) {
+        if (log.isDebugEnabled())
+            log.debug("[{}] onSubscribe", stage);
+    }
+
+    @Override
+    public void onFirstElement(String stage, long nanosSinceSubscribe) {
+        if (log.isDebugEnabled())
+            log.debug("[{}] first element after {} us", stage, nanosSinceSubscribe / 1000);
+    }
+
+    @Override
+    public void onElement(String stage, long nanosSincePrevious) {
+        if (!log.isInfoEnabled())
+            return;
+        var counter = elements.computeIfAbsent(stage, ignored -> new AtomicLong());
+        if (counter.incrementAndGet() % sampleRate == 0)
+            log.info("[{}] onNext (sampled 1/{}) {} us since previous",
+                    stage, sampleRate, nanosSincePrevious / 1000);
+    }
+
+    @Override
+    public void onCancel(String stage) {
+        if (log.isDebugEnabled())
+            log.debug("[{}] cancel", stage);
+    }
+
+    @Override
+    public void onComplete(String stage) {
+        if (log.isDebugEnabled())
+            log.debug("[{}] onComplete", stage);
+    }
+
+    @Override
+    public void onError(String stage, Throwable throwable) {
+        log.error("[{}] onError {}", stage, throwable.toString());
+    }
+}
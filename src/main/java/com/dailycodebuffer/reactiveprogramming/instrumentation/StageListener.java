@@ -0,0 +1,30 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+//Recibe los eventos de un pipeline instrumentado con PipelineInstrumentation. Se llama en
+//el hilo del flujo, así que las implementaciones no deben bloquear ni crear objetos por
+//cada elemento
+public interface StageListener {
+
+    default void onSubscribe(String stage) {
+    }
+
+    default void onRequest(String stage, long requested) {
+    }
+
+    //Tiempo desde la subscripción hasta el primer elemento
+    default void onFirstElement(String stage, long nanosSinceSubscribe) {
+    }
+
+    //Tiempo desde el elemento anterior (o desde la subscripción para el primero)
+    default void onElement(String stage, long nanosSincePrevious) {
+    }
+
+    default void onCancel(String stage) {
+    }
+
+    default void onComplete(String stage) {
+    }
+
+    default void onError(String stage, Throwable throwable) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Guarda en memoria contadores e histogramas por etapa. La etapa se busca en un
+//ConcurrentHashMap (get no crea objetos) y solo se crea la primera vez que se ve
+public class StageMetricsRegistry implements StageListener {
+
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+
+    @Override
+    public void onSubscribe(String stage) {
+        metrics(stage).subscriptions.increment();
+    }
+
+    @Override
+    public void onRequest(String stage, long requested) {
+        //Long.MAX_VALUE es un request unbounded, se cuenta como uno solo para no desbordar
+        var stageMetrics = metrics(stage);
+        if (requested == Long.MAX_VALUE)
+            stageMetrics.unboundedRequests.increment();
+        else
+            stageMetrics.requested.add(requested);
+    }
+
+    @Override
+    public void onFirstElement(String stage, long nanosSinceSubscribe) {
+        metrics(stage).firstElement.record(nanosSinceSubscribe);
+    }
+
+    @Override
+    public void onElement(String stage, long nanosSincePrevious) {
+        metrics(stage).element.record(nanosSincePrevious);
+    }
+
+    @Override
+    public void onCancel(String stage) {
+        metrics(stage).cancellations.increment();
+    }
+
+    @Override
+    public void onComplete(String stage) {
+        metrics(stage).completions.increment();
+    }
+
+    @Override
+    public void onError(String stage, Throwable throwable) {
+        metrics(stage).errors.increment();
+    }
+
+    public Optional<StageSnapshot> snapshot(String stage) {
+        return Optional.ofNullable(stages.get(stage))
+                .map(stageMetrics -> stageMetrics.snapshot(stage));
+    }
+
+    public Map<String, StageSnapshot> snapshots() {
+        var snapshots = new TreeMap<String, StageSnapshot>();
+        stages.forEach((stage, stageMetrics) -> snapshots.put(stage, stageMetrics.snapshot(stage)));
+        return snapshots;
+    }
+
+    private StageMetrics metrics(String stage) {
+        var stageMetrics = stages.get(stage);
+        return stageMetrics != null
+                ? stageMetrics
+                : stages.computeIfAbsent(stage, name -> new StageMetrics());
+    }
+
+    private static class StageMetrics {
+        private final LongAdder subscriptions = new LongAdder();
+        private final LongAdder requested = new LongAdder();
+        private final LongAdder unboundedRequests = new LongAdder();
+        private final LongAdder cancellations = new LongAdder();
+        private final LongAdder completions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram firstElement = new LatencyHistogram();
+        private final LatencyHistogram element = new LatencyHistogram();
+
+        private StageSnapshot snapshot(String stage) {
+            var totalRequested = unboundedRequests.sum() > 0 ? Long.MAX_VALUE : requested.sum();
+            return new StageSnapshot(stage, subscriptions.sum(), totalRequested,
+                    element.getCount(), cancellations.sum(), completions.sum(), errors.sum(),
+                    firstElement.percentileNanos(0.5), firstElement.percentileNanos(0.99),
+                    element.percentileNanos(0.5), element.percentileNanos(0.99));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import lombok.Value;
+
+//Foto de las métricas de una etapa
+@Value
+public class StageSnapshot {
+    String stage;
+    long subscriptions;
+    long requested;
+    long elements;
+    long cancellations;
+    long completions;
+    long errors;
+    long firstElementP50Nanos;
+    long firstElementP99Nanos;
+    long elementP50Nanos;
+    long elementP99Nanos;
+}
@@ -0,0 +1,111 @@
+package com.dailycodebuffer.reactiveprogramming.repository;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.placeholders;
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.stream;
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.withConnection;
+
+//BookInfoService sobre la tabla books vía R2DBC. Ninguna consulta bloquea el hilo que
+//la suscribe
+public class R2dbcBookInfoService extends BookInfoService {
+
+    private static final String COLUMNS = "book_id, title, author, isbn";
+    private static final int FETCH_SIZE = 256;
+
+    private final ConnectionFactory connectionFactory;
+
+    public R2dbcBookInfoService(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    //Fila por fila: el driver trae de a FETCH_SIZE y la conexión queda tomada hasta que
+    //termina (o se cancela) el recorrido
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return withConnection(connectionFactory, connection ->
+                stream(connection.createStatement("SELECT " + COLUMNS + " FROM books ORDER BY book_id")
+                        .fetchSize(FETCH_SIZE), R2dbcBookInfoService::toBookInfo));
+    }
+
+    //Vacío si el libro no existe
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return withConnection(connectionFactory, connection ->
+                stream(connection.createStatement("SELECT " + COLUMNS + " FROM books WHERE book_id = $1")
+                        .bind("$1", bookId), R2dbcBookInfoService::toBookInfo))
+                .next();
+    }
+
+    @Override
+    public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+        return withConnection(connectionFactory, connection ->
+                stream(connection.createStatement("SELECT " + COLUMNS
+                                + " FROM books WHERE book_id > $1 ORDER BY book_id LIMIT $2")
+                        .bind("$1", afterBookId)
+                        .bind("$2", pageSize + 1), R2dbcBookInfoService::toBookInfo))
+                .collectList()
+                .map(books -> toPage(books, pageSize));
+    }
+
+    //Una consulta con IN por cada MAX_IN_SIZE ids
+    @Override
+    public Mono<Map<Long, BookInfo>> getBooksByIds(Collection<Long> bookIds) {
+        return Flux.fromIterable(bookIds)
+                .distinct()
+                .buffer(R2dbcReviewService.MAX_IN_SIZE)
+                .concatMap(this::booksIn)
+                .collectMap(BookInfo::getBookId);
+    }
+
+    //Inserta o reemplaza el libro
+    //MERGE ... KEY es sintaxis de H2; en otra base hay que cambiarlo, por ejemplo en
+    //PostgreSQL INSERT ... ON CONFLICT (book_id) DO UPDATE
+    public Mono<Void> save(BookInfo bookInfo) {
+        return withConnection(connectionFactory, connection -> {
+            Statement statement = connection.createStatement(
+                    "MERGE INTO books (" + COLUMNS + ") KEY (book_id) VALUES ($1, $2, $3, $4)")
+                    .bind("$1", bookInfo.getBookId());
+            bindNullable(statement, "$2", bookInfo.getTitle());
+            bindNullable(statement, "$3", bookInfo.getAuthor());
+            bindNullable(statement, "$4", bookInfo.getISBN());
+            return Flux.from(statement.execute()).flatMap(result -> result.getRowsUpdated());
+        }).then();
+    }
+
+    private Flux<BookInfo> booksIn(List<Long> bookIds) {
+        return withConnection(connectionFactory, connection -> {
+            var statement = connection.createStatement("SELECT " + COLUMNS
+                    + " FROM books WHERE book_id IN (" + placeholders(1, bookIds.size()) + ")");
+            for (int i = 0; i < bookIds.size(); i++)
+                statement.bind("$" + (i + 1), bookIds.get(i));
+            return stream(statement, R2dbcBookInfoService::toBookInfo);
+        });
+    }
+
+    static void bindNullable(Statement statement, String name, String value) {
+        if (value == null)
+            statement.bindNull(name, String.class);
+        else
+            statement.bind(name, value);
+    }
+
+    private static BookInfo toBookInfo(Row row) {
+        return new BookInfo(
+                row.get("book_id", Long.class),
+                row.get("title", String.class),
+                row.get("author", String.class),
+                row.get("isbn", String.class));
+    }
+}
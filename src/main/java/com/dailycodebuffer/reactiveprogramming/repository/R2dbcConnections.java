@@ -0,0 +1,81 @@
+package com.dailycodebuffer.reactiveprogramming.repository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+//Utilidades compartidas por los servicios R2DBC: pool de conexiones, esquema y el manejo
+//de la conexión alrededor de cada consulta
+public final class R2dbcConnections {
+
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS books ("
+                    + " book_id BIGINT PRIMARY KEY,"
+                    + " title VARCHAR(255),"
+                    + " author VARCHAR(255),"
+                    + " isbn VARCHAR(32))",
+            "CREATE TABLE IF NOT EXISTS reviews ("
+                    + " review_id BIGINT PRIMARY KEY,"
+                    + " book_id BIGINT NOT NULL,"
+                    + " ratings DOUBLE NOT NULL,"
+                    + " comments VARCHAR(1024))",
+            "CREATE INDEX IF NOT EXISTS reviews_book_id ON reviews (book_id)");
+
+    private R2dbcConnections() {
+    }
+
+    //Pool sobre la URL R2DBC, por ejemplo r2dbc:h2:mem:///books;DB_CLOSE_DELAY=-1
+    public static ConnectionPool pooled(String url, int maxSize) {
+        var configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+                .initialSize(Math.min(2, maxSize))
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(30))
+                .validationQuery("SELECT 1")
+                .build();
+        return new ConnectionPool(configuration);
+    }
+
+    public static Mono<Void> createSchema(ConnectionFactory connectionFactory) {
+        return withConnection(connectionFactory, connection -> {
+            var batch = connection.createBatch();
+            SCHEMA.forEach(batch::add);
+            return Flux.from(batch.execute()).flatMap(result -> result.getRowsUpdated());
+        }).then();
+    }
+
+    //Pide una conexión del pool, ejecuta la consulta y la devuelve al terminar, con error
+    //o al cancelar
+    static <T> Flux<T> withConnection(ConnectionFactory connectionFactory,
+                                      Function<Connection, Flux<T>> query) {
+        return Flux.usingWhen(connectionFactory.create(), query, Connection::close);
+    }
+
+    //Las filas se mapean a medida que llegan, sin juntar el resultado en una lista
+    static <T> Flux<T> stream(Statement statement, Function<Row, T> mapper) {
+        return Flux.from(statement.execute())
+                .concatMap(result -> result.map((row, metadata) -> mapper.apply(row)));
+    }
+
+    //Marcadores $1, $2, ... para un IN con count valores, empezando en first
+    static String placeholders(int first, int count) {
+        var placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                placeholders.append(", ");
+            placeholders.append('$').append(first + i);
+        }
+        return placeholders.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.dailycodebuffer.reactiveprogramming.repository;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.domain.ReviewBatch;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcBookInfoService.bindNullable;
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.placeholders;
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.stream;
+import static com.dailycodebuffer.reactiveprogramming.repository.R2dbcConnections.withConnection;
+
+//ReviewService sobre la tabla reviews vía R2DBC
+public class R2dbcReviewService extends ReviewService {
+
+    private static final String COLUMNS = "review_id, book_id, ratings, comments";
+
+    //Máximo de ids por IN; los lotes más grandes se parten en varias consultas
+    static final int MAX_IN_SIZE = 500;
+
+    private final ConnectionFactory connectionFactory;
+
+    public R2dbcReviewService(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public Flux<Review> getReviews(long bookId) {
+        return withConnection(connectionFactory, connection ->
+                stream(connection.createStatement("SELECT " + COLUMNS
+                                + " FROM reviews WHERE book_id = $1 ORDER BY review_id")
+                        .bind("$1", bookId), R2dbcReviewService::toReview));
+    }
+
+    //Las columnas de cada fila van directo al ReviewBatch, sin crear un Review por fila
+    @Override
+    public Mono<ReviewBatch> getReviewBatch(long bookId) {
+        return Mono.defer(() -> {
+            var builder = ReviewBatch.builder(bookId);
+            return withConnection(connectionFactory, connection ->
+                    stream(connection.createStatement("SELECT review_id, ratings, comments"
+                                    + " FROM reviews WHERE book_id = $1 ORDER BY review_id")
+                            .bind("$1", bookId), row -> builder.add(
+                            row.get("review_id", Long.class),
+                            row.get("ratings", Double.class),
+                            row.get("comments", String.class))))
+                    .then(Mono.fromSupplier(builder::build));
+        });
+    }
+
+    //Una consulta con IN por cada MAX_IN_SIZE libros, en vez de una por libro
+    @Override
+    public Mono<Map<Long, List<Review>>> getReviewsForBooks(Collection<Long> bookIds) {
+        return Flux.fromIterable(bookIds)
+                .distinct()
+                .buffer(MAX_IN_SIZE)
+                .concatMap(this::reviewsIn)
+                .collect(LinkedHashMap::new, (Map<Long, List<Review>> reviewsByBook, Review review) ->
+                        reviewsByBook.computeIfAbsent(review.getBookId(), bookId -> new ArrayList<>())
+                                .add(review));
+    }
+
+    //Inserta o reemplaza el review
+    //MERGE ... KEY es sintaxis de H2; en otra base hay que cambiarlo, por ejemplo en
+    //PostgreSQL INSERT ... ON CONFLICT (review_id) DO UPDATE
+    public Mono<Void> save(Review review) {
+        return withConnection(connectionFactory, connection -> {
+            var statement = connection.createStatement(
+                    "MERGE INTO reviews (" + COLUMNS + ") KEY (review_id) VALUES ($1, $2, $3, $4)")
+                    .bind("$1", review.getReviewId())
+                    .bind("$2", review.getBookId())
+                    .bind("$3", review.getRatings());
+            bindNullable(statement, "$4", review.getComments());
+            return Flux.from(statement.execute()).flatMap(result -> result.getRowsUpdated());
+        }).then();
+    }
+
+    private Flux<Review> reviewsIn(List<Long> bookIds) {
+        return withConnection(connectionFactory, connection -> {
+            var statement = connection.createStatement("SELECT " + COLUMNS
+                    + " FROM reviews WHERE book_id IN (" + placeholders(1, bookIds.size()) + ")"
+                    + " ORDER BY book_id, review_id");
+            for (int i = 0; i < bookIds.size(); i++)
+                statement.bind("$" + (i + 1), bookIds.get(i));
+            return stream(statement, R2dbcReviewService::toReview);
+        });
+    }
+
+    private static Review toReview(Row row) {
+        return new Review(
+                row.get("review_id", Long.class),
+                row.get("book_id", Long.class),
+                row.get("ratings", Double.class),
+                row.get("comments", String.class));
+    }
+}
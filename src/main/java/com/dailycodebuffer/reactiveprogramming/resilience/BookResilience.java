@@ -0,0 +1,99 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import com.dailycodebuffer.reactiveprogramming.exception.BookException;
+import com.dailycodebuffer.reactiveprogramming.exception.CircuitBreakerOpenException;
+import lombok.Builder;
+import lombok.Getter;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Agrupa lo que BookService necesita para no empeorar una caída del upstream: un circuit
+//breaker por servicio, el presupuesto de reintentos compartido, los parámetros del
+//backoff y los hedgers de getBookById (apagados por defecto). Una misma instancia se
+//puede compartir entre varios BookService para que el presupuesto y los breakers sean
+//globales
+@Getter
+@Builder
+public class BookResilience {
+
+    @Builder.Default
+    private CircuitBreaker bookInfoBreaker
+            = new CircuitBreaker("bookInfoService", 5, Duration.ofSeconds(30));
+
+    @Builder.Default
+    private CircuitBreaker reviewBreaker
+            = new CircuitBreaker("reviewService", 5, Duration.ofSeconds(30));
+
+    @Builder.Default
+    private RetryBudget retryBudget = new RetryBudget(20, 2);
+
+    @Builder.Default
+    private int maxRetries = 3;
+
+    @Builder.Default
+    private Duration minBackoff = Duration.ofMillis(1000);
+
+    @Builder.Default
+    private Duration maxBackoff = Duration.ofSeconds(10);
+
+    //Fracción aleatoria que se suma o resta a cada espera, para que los clientes no
+    //reintenten todos al mismo tiempo
+    @Builder.Default
+    private double jitter = 0.5;
+
+    @Builder.Default
+    private Hedger bookInfoHedger = Hedger.disabled();
+
+    @Builder.Default
+    private Hedger reviewHedger = Hedger.disabled();
+
+    public static BookResilience defaults() {
+        return BookResilience.builder().build();
+    }
+
+    //Reintento inmediato, lo que antes era retry(3)
+    public Retry immediateRetry() {
+        return withBudget(Retry.max(maxRetries)
+                .filter(this::isRetryable)
+                .onRetryExhaustedThrow((retrySpec, retrySignal) ->
+                        Exceptions.propagate(retrySignal.failure())
+                ));
+    }
+
+    //Backoff exponencial con jitter, lo que antes era Retry.backoff(3, 1s)
+    public Retry backoffRetry() {
+        return withBudget(Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(this::isRetryable)
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) ->
+                        Exceptions.propagate(retrySignal.failure())
+                ));
+    }
+
+    //Con el breaker abierto no tiene sentido reintentar
+    private boolean isRetryable(Throwable throwable) {
+        return throwable instanceof BookException
+                && !(throwable instanceof CircuitBreakerOpenException);
+    }
+
+    //El token se pide cuando el spec ya decidió reintentar (y en backoff, después de la
+    //espera), no en el filter: Reactor evalúa el filter antes de ver si quedan intentos, así
+    //que el último error de una cadena agotada gastaba un token sin reintentar. Sin token
+    //la cadena falla con el último error
+    private Retry withBudget(Retry retry) {
+        return Retry.from(retrySignals -> {
+            var lastFailure = new AtomicReference<Throwable>();
+            return Flux.from(retry.generateCompanion(retrySignals
+                            .doOnNext(retrySignal -> lastFailure.set(retrySignal.failure()))))
+                    .concatMap(trigger -> retryBudget.tryAcquire()
+                            ? Mono.just(trigger)
+                            : Mono.error(lastFailure.get()));
+        });
+    }
+}
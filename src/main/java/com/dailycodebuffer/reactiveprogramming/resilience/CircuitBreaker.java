@@ -0,0 +1,146 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import com.dailycodebuffer.reactiveprogramming.exception.CircuitBreakerOpenException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//Circuit breaker no bloqueante para los llamados a un servicio.
+//CLOSED: los llamados pasan y se cuentan los fallos seguidos. Al llegar a failureThreshold
+//pasa a OPEN.
+//OPEN: los llamados fallan de una vez con CircuitBreakerOpenException sin tocar el
+//servicio. Después de openDuration pasa a HALF_OPEN.
+//HALF_OPEN: se deja pasar un solo llamado de prueba. Si termina bien se cierra, si falla
+//se vuelve a abrir.
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong halfOpenedCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    //El permiso se pide al momento de la subscripción, no al armar el Mono
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission())
+                return Mono.error(rejection());
+            return call.doFinally(this::onFinally)
+                    .doOnSuccess(value -> onSuccess())
+                    .doOnError(throwable -> onFailure());
+        });
+    }
+
+    public <T> Flux<T> protect(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquirePermission())
+                return Flux.error(rejection());
+            return call.doFinally(this::onFinally)
+                    .doOnComplete(this::onSuccess)
+                    .doOnError(throwable -> onFailure());
+        });
+    }
+
+    public synchronized State getState() {
+        return currentState();
+    }
+
+    public synchronized CircuitBreakerMetrics metrics() {
+        return new CircuitBreakerMetrics(name, currentState(), openedCount.get(),
+                halfOpenedCount.get(), closedCount.get(), rejectedCalls.get());
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        switch (currentState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight)
+                    return false;
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private CircuitBreakerOpenException rejection() {
+        rejectedCalls.incrementAndGet();
+        return new CircuitBreakerOpenException("Circuit breaker '" + name + "' is open");
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN)
+            transitionTo(State.CLOSED);
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.CLOSED && consecutiveFailures >= failureThreshold)
+            transitionTo(State.OPEN);
+    }
+
+    //Si el llamado de prueba se cancela se libera el cupo para que otro lo intente
+    private synchronized void onFinally(SignalType signalType) {
+        if (signalType == SignalType.CANCEL)
+            trialInFlight = false;
+    }
+
+    //OPEN pasa a HALF_OPEN de forma perezosa la primera vez que alguien mira el estado
+    private State currentState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos)
+            transitionTo(State.HALF_OPEN);
+        return state;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Circuit breaker '" + name + "' " + state + " -> " + next);
+        state = next;
+        trialInFlight = false;
+        switch (next) {
+            case OPEN:
+                openedAt = nanoClock.getAsLong();
+                openedCount.incrementAndGet();
+                break;
+            case HALF_OPEN:
+                halfOpenedCount.incrementAndGet();
+                break;
+            default:
+                consecutiveFailures = 0;
+                closedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import lombok.Value;
+
+//Foto de los contadores de un CircuitBreaker
+@Value
+public class CircuitBreakerMetrics {
+    String name;
+    CircuitBreaker.State state;
+    long openedCount;
+    long halfOpenedCount;
+    long closedCount;
+    long rejectedCalls;
+}
@@ -0,0 +1,137 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+//Hedged requests: si el llamado no ha respondido después de un tiempo se manda un
+//duplicado y se queda con la primera respuesta. Mono.firstWithSignal cancela el que
+//pierde. El tiempo de espera es fijo o el percentil de las latencias recientes.
+//Un error del duplicado nunca gana: se convierte en Mono.never() para que no cancele un
+//primario sano (por ejemplo el llamado de prueba en HALF_OPEN, cuando el duplicado recibe
+//CircuitBreakerOpenException). Solo se ve como suppressed si el primario también falla
+//Para no duplicar la carga durante una caída, cada llamado gana maxHedgeRatio créditos
+//(hasta un máximo) y cada duplicado gasta uno
+public class Hedger {
+
+    private static final double MAX_CREDITS = 10;
+
+    private final boolean enabled;
+    private final Duration fixedDelay;
+    private final LatencyEstimator estimator;
+    private final double maxHedgeRatio;
+
+    private double credits;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgeErrors = new AtomicLong();
+
+    private Hedger(boolean enabled, Duration fixedDelay, LatencyEstimator estimator,
+                   double maxHedgeRatio) {
+        this.enabled = enabled;
+        this.fixedDelay = fixedDelay;
+        this.estimator = estimator;
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    public static Hedger disabled() {
+        return new Hedger(false, Duration.ZERO, null, 0);
+    }
+
+    public static Hedger fixedDelay(Duration delay, double maxHedgeRatio) {
+        return new Hedger(true, delay, null, maxHedgeRatio);
+    }
+
+    //Mientras no haya suficientes muestras se usa initialDelay
+    public static Hedger percentile(double percentile, Duration initialDelay, double maxHedgeRatio) {
+        return new Hedger(true, initialDelay, new LatencyEstimator(512, percentile), maxHedgeRatio);
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        if (!enabled)
+            return Mono.defer(call);
+
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            earnCredit();
+
+            var hedgeError = new AtomicReference<Throwable>();
+
+            Mono<T> primary = Mono.defer(call)
+                    .onErrorMap(error -> {
+                        var suppressed = hedgeError.get();
+                        if (suppressed != null && suppressed != error)
+                            error.addSuppressed(suppressed);
+                        return error;
+                    });
+            Mono<T> hedged = Mono.delay(currentDelay())
+                    .flatMap(tick -> {
+                        if (!tryAcquireCredit())
+                            return Mono.<T>never();
+                        return Mono.defer(call)
+                                .doOnNext(value -> hedgeWins.incrementAndGet())
+                                .onErrorResume(error -> {
+                                    hedgeErrors.incrementAndGet();
+                                    hedgeError.set(error);
+                                    return Mono.never();
+                                });
+                    });
+
+            return Mono.firstWithSignal(primary, hedged)
+                    .doOnNext(value -> {
+                        if (estimator != null)
+                            estimator.record(System.nanoTime() - start);
+                    });
+        });
+    }
+
+    public Duration currentDelay() {
+        if (estimator != null) {
+            var estimate = estimator.estimateNanos();
+            if (estimate >= 0)
+                return Duration.ofNanos(estimate);
+        }
+        return fixedDelay;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    public long getHedgesDenied() {
+        return hedgesDenied.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public long getHedgeErrors() {
+        return hedgeErrors.get();
+    }
+
+    private synchronized void earnCredit() {
+        requests.incrementAndGet();
+        credits = Math.min(MAX_CREDITS, credits + maxHedgeRatio);
+    }
+
+    private synchronized boolean tryAcquireCredit() {
+        if (credits >= 1) {
+            credits -= 1;
+            hedgesSent.incrementAndGet();
+            return true;
+        }
+        hedgesDenied.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import java.util.Arrays;
+
+//Percentil de latencia sobre las últimas N muestras. Las muestras se guardan en un arreglo
+//circular y el percentil solo se recalcula cada cierto número de muestras, así registrar
+//una latencia no hace ninguna asignación de memoria
+public class LatencyEstimator {
+
+    private final long[] samples;
+    private final double percentile;
+    private final int recomputeEvery;
+
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private long cachedNanos = -1;
+
+    public LatencyEstimator(int window, double percentile) {
+        this.samples = new long[window];
+        this.percentile = percentile;
+        this.recomputeEvery = Math.max(1, window / 8);
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length)
+            count++;
+        sinceRecompute++;
+    }
+
+    //-1 mientras no haya suficientes muestras para que el percentil signifique algo
+    public synchronized long estimateNanos() {
+        if (count < recomputeEvery)
+            return -1;
+        if (cachedNanos < 0 || sinceRecompute >= recomputeEvery) {
+            var sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            var index = (int) Math.ceil(percentile * count) - 1;
+            cachedNanos = sorted[Math.max(0, Math.min(count - 1, index))];
+            sinceRecompute = 0;
+        }
+        return cachedNanos;
+    }
+}
@@ -0,0 +1,64 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//Token bucket compartido por todos los reintentos. Cada reintento gasta un token y los
+//tokens se recargan a una tasa fija por segundo hasta la capacidad máxima. Cuando el
+//upstream está caído los reintentos se acaban rápido y los llamados fallan de una vez,
+//en vez de multiplicar la carga por el número de intentos
+public class RetryBudget {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefill;
+
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    public RetryBudget(long capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System::nanoTime);
+    }
+
+    RetryBudget(long capacity, double tokensPerSecond, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    //No bloquea: si no hay token se devuelve false y el reintento no se hace
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            granted.incrementAndGet();
+            return true;
+        }
+        denied.incrementAndGet();
+        return false;
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    public long getGranted() {
+        return granted.get();
+    }
+
+    public long getDenied() {
+        return denied.get();
+    }
+
+    private void refill() {
+        var now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
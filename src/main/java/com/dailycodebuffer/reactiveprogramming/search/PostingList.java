@@ -0,0 +1,158 @@
+package com.dailycodebuffer.reactiveprogramming.search;
+
+import java.util.Arrays;
+
+//Lista de documentos que contienen un término, en orden de documento. Cada entrada es
+//[diferencia con el documento anterior][frecuencia del término] en varints, así que una
+//entrada típica ocupa 2 bytes en vez de los 8+ de un par de ints (o más en una colección).
+//Las entradas de documentos borrados se quedan hasta compactar, pero no cuentan en size().
+//Las entradas se agrupan en bloques de BLOCK_SIZE. Cada bloque guarda dónde empieza, el
+//documento anterior a su primera entrada (para decodificarlo sin leer los anteriores), la
+//frecuencia más alta y el largo del documento más corto: con eso se acota el puntaje BM25
+//de cualquier entrada del bloque sin decodificarlo, y se busca un documento por binaria
+class PostingList {
+
+    static final int BLOCK_SIZE = 128;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int entries;
+    private int size;
+    private int lastDoc = -1;
+
+    private int blocks;
+    private int[] blockOffsets = new int[1];
+    private int[] blockPreviousDocs = new int[1];
+    private int[] blockMaxFrequencies = new int[1];
+    private int[] blockMinLengths = new int[1];
+
+    //Los documentos se agregan siempre en orden creciente (ver ReviewSearchIndex)
+    void add(int doc, int frequency, int docLength) {
+        if (entries % BLOCK_SIZE == 0)
+            startBlock();
+        ensureCapacity(10);
+        writeVarint(doc - lastDoc);
+        writeVarint(frequency);
+        lastDoc = doc;
+        var block = blocks - 1;
+        blockMaxFrequencies[block] = Math.max(blockMaxFrequencies[block], frequency);
+        blockMinLengths[block] = Math.min(blockMinLengths[block], docLength);
+        entries++;
+        size++;
+    }
+
+    //Uno de los documentos de la lista se borró del índice
+    void removed() {
+        size--;
+    }
+
+    //Cantidad de documentos vivos (document frequency)
+    int size() {
+        return size;
+    }
+
+    int sizeInBytes() {
+        return length;
+    }
+
+    int blocks() {
+        return blocks;
+    }
+
+    int maxFrequency(int block) {
+        return blockMaxFrequencies[block];
+    }
+
+    int minLength(int block) {
+        return blockMinLengths[block];
+    }
+
+    //Decodifica las entradas del bloque y devuelve cuántas leyó
+    int forEachInBlock(int block, PostingConsumer consumer) {
+        var position = blockOffsets[block];
+        var end = block + 1 < blocks ? blockOffsets[block + 1] : length;
+        var doc = blockPreviousDocs[block];
+        var read = 0;
+        while (position < end) {
+            var delta = 0;
+            var shift = 0;
+            byte current;
+            do {
+                current = bytes[position++];
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+
+            var frequency = 0;
+            shift = 0;
+            do {
+                current = bytes[position++];
+                frequency |= (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+
+            doc += delta;
+            read++;
+            consumer.accept(doc, frequency);
+        }
+        return read;
+    }
+
+    //Frecuencia del término en doc, 0 si no está. Busca el bloque por binaria y decodifica
+    //solo ese
+    int frequency(int doc) {
+        var low = 0;
+        var high = blocks - 1;
+        var block = -1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (blockPreviousDocs[middle] < doc) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0)
+            return 0;
+        var found = new int[1];
+        forEachInBlock(block, (entryDoc, frequency) -> {
+            if (entryDoc == doc)
+                found[0] = frequency;
+        });
+        return found[0];
+    }
+
+    private void startBlock() {
+        if (blocks == blockOffsets.length) {
+            var capacity = blocks * 2;
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            blockPreviousDocs = Arrays.copyOf(blockPreviousDocs, capacity);
+            blockMaxFrequencies = Arrays.copyOf(blockMaxFrequencies, capacity);
+            blockMinLengths = Arrays.copyOf(blockMinLengths, capacity);
+        }
+        blockOffsets[blocks] = length;
+        blockPreviousDocs[blocks] = lastDoc;
+        blockMaxFrequencies[blocks] = 0;
+        blockMinLengths[blocks] = Integer.MAX_VALUE;
+        blocks++;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int doc, int frequency);
+    }
+}
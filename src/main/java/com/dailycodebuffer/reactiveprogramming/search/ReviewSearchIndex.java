@@ -0,0 +1,422 @@
+package com.dailycodebuffer.reactiveprogramming.search;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Índice invertido sobre Review.comments: término -> PostingList de documentos. Cada review
+//es un documento con un número interno creciente; actualizar un review es borrarlo y
+//agregarlo con un número nuevo, así las posting lists siempre se agregan al final. Los
+//borrados quedan como huecos que se saltan al buscar, y cuando son más que los vivos el
+//índice se reconstruye. La document frequency de BM25 cuenta solo los documentos vivos
+//(unindex la descuenta), si no un review actualizado muchas veces deja el idf negativo.
+//Las búsquedas ordenan por BM25 y devuelven un Flux que respeta el backpressure: el
+//puntaje se calcula a medida que se piden resultados (ver TopDocs), así que un cliente
+//que toma 20 solo lee los bloques de las posting lists que hacen falta para esos 20
+public class ReviewSearchIndex {
+
+    //Parámetros de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int MIN_DELETED_TO_COMPACT = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, PostingList> postings = new HashMap<>();
+    private List<Review> docs = new ArrayList<>();
+    private int[] docLengths = new int[64];
+    private Map<Long, Integer> docByReviewId = new HashMap<>();
+    private long totalLength;
+    private int deleted;
+
+    private final LongAdder postingsRead = new LongAdder();
+
+    //Agrega el review o lo reemplaza si el reviewId ya estaba indexado
+    public void add(Review review) {
+        lock.writeLock().lock();
+        try {
+            unindex(review.getReviewId());
+            index(review);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long reviewId) {
+        lock.writeLock().lock();
+        try {
+            unindex(reviewId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Mono<Void> addAll(Flux<Review> reviews) {
+        return reviews.doOnNext(this::add).then();
+    }
+
+    //Reviews que mencionan alguno de los términos de query, del más relevante al menos
+    public Flux<Review> search(String query) {
+        var terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty())
+            return Flux.empty();
+        return Flux.generate(() -> topDocs(terms), (topDocs, sink) -> {
+            var review = next(topDocs);
+            if (review == null)
+                sink.complete();
+            else
+                sink.next(review);
+            return topDocs;
+        });
+    }
+
+    //Libros cuyos reviews mencionan la búsqueda, en el orden de su review más relevante
+    public Flux<Long> searchBookIds(String query) {
+        return search(query)
+                .map(Review::getBookId)
+                .distinct();
+    }
+
+    //Cantidad de reviews indexados
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByReviewId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int postingBytes() {
+        lock.readLock().lock();
+        try {
+            return postings.values().stream().mapToInt(PostingList::sizeInBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            var postingList = postings.get(term);
+            return postingList == null ? 0 : postingList.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Entradas de posting lists que han leído las búsquedas, para medir cuánto se ahorra al
+    //cortar temprano
+    long postingsRead() {
+        return postingsRead.sum();
+    }
+
+    private TopDocs topDocs(Iterable<String> terms) {
+        lock.readLock().lock();
+        try {
+            return new TopDocs(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Review next(TopDocs topDocs) {
+        lock.readLock().lock();
+        try {
+            return topDocs.next();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Review review) {
+        var doc = docs.size();
+        var tokens = Tokenizer.tokenize(review.getComments());
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new PostingList()).add(doc, frequency, tokens.size()));
+
+        docs.add(review);
+        if (doc == docLengths.length)
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        docLengths[doc] = tokens.size();
+        docByReviewId.put(review.getReviewId(), doc);
+        totalLength += tokens.size();
+    }
+
+    private void unindex(long reviewId) {
+        var doc = docByReviewId.remove(reviewId);
+        if (doc == null)
+            return;
+        for (String term : new HashSet<>(Tokenizer.tokenize(docs.get(doc).getComments())))
+            postings.get(term).removed();
+        docs.set(doc, null);
+        totalLength -= docLengths[doc];
+        deleted++;
+    }
+
+    private void compactIfNeeded() {
+        if (deleted >= MIN_DELETED_TO_COMPACT && deleted > docByReviewId.size())
+            compact();
+    }
+
+    //Vuelve a indexar solo los reviews vivos, con números de documento nuevos
+    private void compact() {
+        var live = docs;
+        postings = new HashMap<>();
+        docs = new ArrayList<>(docByReviewId.size());
+        docLengths = new int[Math.max(64, docByReviewId.size())];
+        docByReviewId = new HashMap<>();
+        totalLength = 0;
+        deleted = 0;
+        for (Review review : live) {
+            if (review != null)
+                index(review);
+        }
+    }
+
+    //Estado de una búsqueda (threshold algorithm de Fagin sobre los bloques de las posting
+    //lists). Los bloques de cada término se leen del de cota más alta al de más baja. Cada
+    //documento nuevo se puntúa completo de una vez, buscando su frecuencia en los otros
+    //términos, y pasa al Ranking. El mejor del Ranking sale cuando su puntaje supera la
+    //suma de las cotas de los próximos bloques de cada término, que es lo máximo que puede
+    //sacar un documento que todavía no se ha visto. Con un empate se sigue leyendo para
+    //respetar el orden por reviewId.
+    //Se queda con las posting lists, documentos y largos del momento de la suscripción; lo
+    //que se agrega después tiene números de documento más altos y se ignora. Los métodos se
+    //llaman con el lock de lectura tomado
+    private class TopDocs {
+        private final List<PostingList> lists = new ArrayList<>();
+        private final List<Double> idfs = new ArrayList<>();
+        //Bloques de cada término ordenados por cota, de mayor a menor, y sus cotas
+        private final List<int[]> blockOrders = new ArrayList<>();
+        private final List<double[]> blockBounds = new ArrayList<>();
+        private int[] nextBlocks;
+
+        private final List<Review> docs = ReviewSearchIndex.this.docs;
+        private final int[] docLengths = ReviewSearchIndex.this.docLengths;
+        private final int docCount = ReviewSearchIndex.this.docs.size();
+        private final double averageLength;
+
+        private final DocSet seen = new DocSet();
+        private final Ranking ranking = new Ranking();
+
+        private TopDocs(Iterable<String> terms) {
+            var liveDocs = docByReviewId.size();
+            averageLength = Math.max(1.0, (double) totalLength / Math.max(1, liveDocs));
+            for (String term : terms) {
+                var postingList = postings.get(term);
+                if (postingList == null || postingList.size() == 0)
+                    continue;
+                var documentFrequency = postingList.size();
+                var idf = Math.log(1 + (liveDocs - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                var blocks = postingList.blocks();
+                var order = new Integer[blocks];
+                var bounds = new double[blocks];
+                for (int block = 0; block < blocks; block++) {
+                    order[block] = block;
+                    bounds[block] = idf * termScore(postingList.maxFrequency(block),
+                            postingList.minLength(block));
+                }
+                Arrays.sort(order, (a, b) -> Double.compare(bounds[b], bounds[a]));
+                var sortedOrder = new int[blocks];
+                var sortedBounds = new double[blocks];
+                for (int i = 0; i < blocks; i++) {
+                    sortedOrder[i] = order[i];
+                    sortedBounds[i] = bounds[order[i]];
+                }
+                lists.add(postingList);
+                idfs.add(idf);
+                blockOrders.add(sortedOrder);
+                blockBounds.add(sortedBounds);
+            }
+            nextBlocks = new int[lists.size()];
+        }
+
+        private Review next() {
+            while (true) {
+                var exhausted = exhausted();
+                if (ranking.size() > 0 && (exhausted || ranking.peekScore() > threshold()))
+                    return ranking.poll();
+                if (exhausted)
+                    return null;
+                readNextBlock();
+            }
+        }
+
+        private void readNextBlock() {
+            var term = -1;
+            for (int i = 0; i < lists.size(); i++) {
+                if (nextBlocks[i] < blockOrders.get(i).length
+                        && (term < 0 || nextBound(i) > nextBound(term)))
+                    term = i;
+            }
+            var block = blockOrders.get(term)[nextBlocks[term]++];
+            var read = lists.get(term).forEachInBlock(block, (doc, frequency) -> {
+                if (doc >= docCount || docs.get(doc) == null || !seen.add(doc))
+                    return;
+                ranking.add(score(doc), docs.get(doc));
+            });
+            postingsRead.add(read);
+        }
+
+        private double score(int doc) {
+            var score = 0.0;
+            for (int i = 0; i < lists.size(); i++) {
+                var frequency = lists.get(i).frequency(doc);
+                if (frequency > 0)
+                    score += idfs.get(i) * termScore(frequency, docLengths[doc]);
+            }
+            return score;
+        }
+
+        private double termScore(int frequency, int docLength) {
+            var norm = K1 * (1 - B + B * docLength / averageLength);
+            return frequency * (K1 + 1) / (frequency + norm);
+        }
+
+        private double nextBound(int term) {
+            var bounds = blockBounds.get(term);
+            return nextBlocks[term] < bounds.length ? bounds[nextBlocks[term]] : 0;
+        }
+
+        private double threshold() {
+            var threshold = 0.0;
+            for (int i = 0; i < lists.size(); i++)
+                threshold += nextBound(i);
+            return threshold;
+        }
+
+        private boolean exhausted() {
+            for (int i = 0; i < lists.size(); i++) {
+                if (nextBlocks[i] < blockOrders.get(i).length)
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    //Conjunto de números de documento con direccionamiento abierto, sin boxing
+    private static class DocSet {
+        private int[] slots = new int[64];
+        private int size;
+
+        //false si ya estaba
+        private boolean add(int doc) {
+            if (size * 2 >= slots.length)
+                grow();
+            if (!insert(slots, doc + 1))
+                return false;
+            size++;
+            return true;
+        }
+
+        private static boolean insert(int[] slots, int value) {
+            var mask = slots.length - 1;
+            var slot = (value * 0x9E3779B9) & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == value)
+                    return false;
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+            return true;
+        }
+
+        private void grow() {
+            var grown = new int[slots.length * 2];
+            for (int value : slots) {
+                if (value != 0)
+                    insert(grown, value);
+            }
+            slots = grown;
+        }
+    }
+
+    //Heap de máximos sobre los candidatos ya puntuados: cada add y cada poll cuestan
+    //O(log n). A igual puntaje sale primero el menor reviewId. Lo usa un solo suscriptor
+    private static class Ranking {
+        private double[] scores = new double[16];
+        private Review[] reviews = new Review[16];
+        private int size;
+
+        private void add(double score, Review review) {
+            if (size == scores.length) {
+                scores = Arrays.copyOf(scores, size * 2);
+                reviews = Arrays.copyOf(reviews, size * 2);
+            }
+            scores[size] = score;
+            reviews[size] = review;
+            var i = size++;
+            while (i > 0 && before(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private double peekScore() {
+            return scores[0];
+        }
+
+        private Review poll() {
+            if (size == 0)
+                return null;
+            var top = reviews[0];
+            size--;
+            swap(0, size);
+            reviews[size] = null;
+            siftDown(0);
+            return top;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                var left = 2 * i + 1;
+                var right = left + 1;
+                var largest = i;
+                if (left < size && before(left, largest))
+                    largest = left;
+                if (right < size && before(right, largest))
+                    largest = right;
+                if (largest == i)
+                    return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private boolean before(int a, int b) {
+            if (scores[a] != scores[b])
+                return scores[a] > scores[b];
+            return reviews[a].getReviewId() < reviews[b].getReviewId();
+        }
+
+        private void swap(int a, int b) {
+            var score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            var review = reviews[a];
+            reviews[a] = reviews[b];
+            reviews[b] = review;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.dailycodebuffer.reactiveprogramming.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//Separa un texto en términos: minúsculas, sin acentos ("Buenísimo" -> "buenisimo"),
+//cortando en todo lo que no sea letra o número. Los términos de una sola letra no se
+//indexan
+public final class Tokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        var tokens = new ArrayList<String>();
+        if (text == null)
+            return tokens;
+        var normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(normalized)) {
+            if (token.length() > 1)
+                tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,54 @@
+package com.dailycodebuffer.reactiveprogramming.services;
+
+import com.dailycodebuffer.reactiveprogramming.instrumentation.PipelineInstrumentation;
+import lombok.Builder;
+import lombok.Value;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+
+//Parámetros del flatMap que usa BookService para unir cada BookInfo con sus reviews, y
+//la instrumentación de sus pipelines. Los valores por defecto del flatMap son los mismos
+//que usa Reactor cuando se llama flatMap sin argumentos
+@Value
+@Builder
+public class BookAggregationOptions {
+
+    //Máximo de llamados a reviewService en vuelo al mismo tiempo
+    @Builder.Default
+    int maxConcurrency = Queues.SMALL_BUFFER_SIZE;
+
+    //Cuántos elementos se le piden por adelantado a cada flujo interno
+    @Builder.Default
+    int prefetch = Queues.XS_BUFFER_SIZE;
+
+    //true usa flatMapSequential (mismo orden del catálogo), false usa flatMap (los libros
+    //salen en el orden en que llegan sus reviews)
+    @Builder.Default
+    boolean ordered = false;
+
+    //Scheduler sobre el que se hace la subscripción al pipeline
+    @Builder.Default
+    Scheduler scheduler = Schedulers.immediate();
+
+    //getBookByIdBatched: cuánto se esperan otros llamados para juntarlos en un lote, y
+    //cuántos ids como máximo van en un lote
+    @Builder.Default
+    Duration collapseWindow = Duration.ofMillis(5);
+
+    @Builder.Default
+    int collapseMaxBatchSize = 100;
+
+    //Reemplaza al .log() que tenían los pipelines. Por defecto loguea en INFO uno de cada
+    //mil elementos por etapa (el ciclo de vida va en DEBUG) y pone un checkpoint liviano
+    //por etapa
+    @Builder.Default
+    PipelineInstrumentation instrumentation
+            = PipelineInstrumentation.sampledLogging(1000).withCheckpoints();
+
+    public static BookAggregationOptions defaults() {
+        return BookAggregationOptions.builder().build();
+    }
+}
@@ -1,13 +1,21 @@
 package com.dailycodebuffer.reactiveprogramming.services;
 
 import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class BookInfoService {
 
+    //Cursor para empezar desde el principio del catálogo
+    public static final long START = Long.MIN_VALUE;
+
     public Flux<BookInfo> getBooks() {
         var books = List.of(
                 new BookInfo(1,"Book One","Author One","12121212"),
@@ -23,4 +31,70 @@ public class BookInfoService {
 
         return Mono.just(book);
     }
+
+    //Versión en lote de getBookById, los ids que no existen no aparecen en el mapa. Esta
+    //versión hace un getBookById por id; los backends con consulta en lote (por ejemplo un
+    //IN en SQL) la sobrescriben
+    public Mono<Map<Long, BookInfo>> getBooksByIds(Collection<Long> bookIds) {
+        return Flux.fromIterable(bookIds)
+                .distinct()
+                .flatMap(this::getBookById)
+                .collectMap(BookInfo::getBookId);
+    }
+
+    //Búsquedas por otros campos. Estas versiones recorren getBooks completo (O(n));
+    //IndexedBookInfoService las resuelve con índices en memoria
+    public Mono<BookInfo> getBookByIsbn(String isbn) {
+        return getBooks()
+                .filter(bookInfo -> isbn.equals(bookInfo.getISBN()))
+                .next();
+    }
+
+    //Sin distinguir mayúsculas
+    public Flux<BookInfo> getBooksByAuthor(String author) {
+        return getBooks()
+                .filter(bookInfo -> bookInfo.getAuthor() != null
+                        && bookInfo.getAuthor().equalsIgnoreCase(author));
+    }
+
+    //Autocompletado: libros cuyo título empieza con prefix, sin distinguir mayúsculas
+    public Flux<BookInfo> getBooksByTitlePrefix(String prefix) {
+        var normalized = prefix.toLowerCase(Locale.ROOT);
+        return getBooks()
+                .filter(bookInfo -> bookInfo.getTitle() != null
+                        && bookInfo.getTitle().toLowerCase(Locale.ROOT).startsWith(normalized));
+    }
+
+    //Paginación por llave (keyset): los pageSize libros con bookId mayor a afterBookId,
+    //en orden de bookId. Un backend real lo resuelve con WHERE book_id > ? ORDER BY
+    //book_id LIMIT ?, esta versión lo hace sobre getBooks
+    public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+        return getBooks()
+                .filter(bookInfo -> bookInfo.getBookId() > afterBookId)
+                .sort((a, b) -> Long.compare(a.getBookId(), b.getBookId()))
+                .take(pageSize + 1L)
+                .collectList()
+                .map(books -> toPage(books, pageSize));
+    }
+
+    //Recorre el catálogo página por página desde el cursor. Mientras se consume una página
+    //ya se está pidiendo la siguiente, y nunca hay más de dos en memoria. Para continuar
+    //después de una caída se llama de nuevo con el bookId del último libro procesado
+    public Flux<BookInfo> getBooksFrom(long afterBookId, int pageSize) {
+        return getBooksPage(afterBookId, pageSize)
+                .expand(page -> page.isHasMore()
+                        ? getBooksPage(page.getNextCursor(), pageSize)
+                        : Mono.empty())
+                .concatMapIterable(BookPage::getBooks, 2);
+    }
+
+    //Se pide un libro de más solo para saber si hay otra página
+    protected static BookPage toPage(List<BookInfo> books, int pageSize) {
+        var hasMore = books.size() > pageSize;
+        var page = hasMore
+                ? books.stream().limit(pageSize).collect(Collectors.toList())
+                : books;
+        var nextCursor = page.isEmpty() ? START : page.get(page.size() - 1).getBookId();
+        return new BookPage(page, nextCursor, hasMore);
+    }
 }
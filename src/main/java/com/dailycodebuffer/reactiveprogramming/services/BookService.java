@@ -1,106 +1,335 @@
 package com.dailycodebuffer.reactiveprogramming.services;
 
+import com.dailycodebuffer.reactiveprogramming.batching.RequestCollapser;
 import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookSummary;
+import com.dailycodebuffer.reactiveprogramming.domain.ColumnarBook;
+import com.dailycodebuffer.reactiveprogramming.domain.DegradationSummary;
+import com.dailycodebuffer.reactiveprogramming.domain.DegradedBook;
 import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.domain.ReviewBatch;
 import com.dailycodebuffer.reactiveprogramming.exception.BookException;
+import com.dailycodebuffer.reactiveprogramming.resilience.BookResilience;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
-import reactor.util.retry.RetryBackoffSpec;
 
 import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class BookService {
 
+    static final int DEFAULT_BATCH_SIZE = 100;
+    static final Duration DEFAULT_BATCH_WAIT = Duration.ofMillis(50);
+    static final Duration DEFAULT_REVIEW_TIMEOUT = Duration.ofSeconds(2);
+    static final int ENRICHMENT_PAGE_SIZE = 256;
+
+    private static final Comparator<Book> BY_BOOK_ID
+            = Comparator.comparingLong(book -> book.getBookInfo().getBookId());
+
     private BookInfoService bookInfoService;
     private ReviewService reviewService;
+    private BookAggregationOptions options;
+    private BookResilience resilience;
+    private RequestCollapser<Long, BookInfo> bookInfoLoader;
+    private RequestCollapser<Long, List<Review>> reviewLoader;
 
     public BookService(BookInfoService bookInfoService, ReviewService reviewService) {
+        this(bookInfoService, reviewService, BookAggregationOptions.defaults());
+    }
+
+    public BookService(BookInfoService bookInfoService, ReviewService reviewService,
+                       BookAggregationOptions options) {
+        this(bookInfoService, reviewService, options, BookResilience.defaults());
+    }
+
+    public BookService(BookInfoService bookInfoService, ReviewService reviewService,
+                       BookAggregationOptions options, BookResilience resilience) {
         this.bookInfoService = bookInfoService;
         this.reviewService = reviewService;
+        //Mockito con @InjectMocks usa el constructor más grande y pasa null en lo que no
+        //puede inyectar
+        this.options = options != null ? options : BookAggregationOptions.defaults();
+        this.resilience = resilience != null ? resilience : BookResilience.defaults();
+        this.bookInfoLoader = new RequestCollapser<>(bookIds -> this.resilience.getBookInfoBreaker()
+                .protect(Mono.defer(() -> bookInfoService.getBooksByIds(bookIds))),
+                this.options.getCollapseMaxBatchSize(), this.options.getCollapseWindow());
+        this.reviewLoader = new RequestCollapser<>(bookIds -> this.resilience.getReviewBreaker()
+                .protect(Mono.defer(() -> reviewService.getReviewsForBooks(bookIds))),
+                this.options.getCollapseMaxBatchSize(), this.options.getCollapseWindow());
     }
 
     public Flux<Book> getBooks() {
         //en realidad esta variable se debería llamar allBooksInfo
-        var allBooks = bookInfoService.getBooks();
-        return allBooks
-                .flatMap(bookInfo -> {
+        var allBooks = allBookInfos();
+        return aggregate(allBooks, bookInfo -> {
                         //Me traigo con el id del libro todos los review que vienen en la forma
                         //de un flux de review y con collectList los convierto a Lista
                     Mono<List<Review>> reviews =
-                            reviewService.getReviews(bookInfo.getBookId()).collectList();
+                            reviews(bookInfo.getBookId()).collectList();
                     return reviews
                             .map(review -> new Book(bookInfo,review));
                 })
-                .onErrorMap(throwable -> {
-                    log.error("Exception is :" + throwable);
-                    return new BookException("Exception occurred while fetching Books");
-                })
-                .log();
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBooks"));
+    }
+
+    //Recorre el catálogo por páginas desde un cursor (BookInfoService.getBooksFrom). Los
+    //libros salen siempre en orden de bookId, sin importar la opción ordered, para que el
+    //bookId del último libro procesado sirva como cursor para continuar después de una caída
+    public Flux<Book> getBooksFrom(long afterBookId, int pageSize) {
+        var bookInfos = resilience.getBookInfoBreaker()
+                .protect(Flux.defer(() -> bookInfoService.getBooksFrom(afterBookId, pageSize)));
+        return bookInfos
+                .flatMapSequential(bookInfo -> reviews(bookInfo.getBookId())
+                                .collectList()
+                                .map(review -> new Book(bookInfo,review)),
+                        options.getMaxConcurrency(), options.getPrefetch())
+                .subscribeOn(options.getScheduler())
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBooksFrom"));
+    }
+
+    public Flux<Book> getBooksPartial(Consumer<DegradationSummary> onSummary) {
+        return getBooksPartial(DEFAULT_REVIEW_TIMEOUT, onSummary);
+    }
+
+    //Modo degradado: cada llamado a reviews tiene su propio timeout y si falla o se demora
+    //el libro sale igual con la lista de reviews vacía, en vez de que onErrorMap tumbe todo
+    //el flujo. Al completar se entrega el resumen de los libros degradados. Si lo que falla
+    //es el catálogo (bookInfoService) el flujo sí termina en BookException
+    public Flux<Book> getBooksPartial(Duration reviewTimeout, Consumer<DegradationSummary> onSummary) {
+        return Flux.defer(() -> {
+            var degradedBooks = new ConcurrentLinkedQueue<DegradedBook>();
+            var totalBooks = new AtomicLong();
+
+            return aggregate(allBookInfos(), bookInfo -> reviews(bookInfo.getBookId())
+                            .collectList()
+                            .timeout(reviewTimeout)
+                            .onErrorResume(throwable -> {
+                                degradedBooks.add(degraded(bookInfo.getBookId(), throwable));
+                                return Mono.just(List.of());
+                            })
+                            .map(review -> new Book(bookInfo,review)))
+                    .doOnNext(book -> totalBooks.incrementAndGet())
+                    .doOnComplete(() -> onSummary.accept(
+                            new DegradationSummary(totalBooks.get(), List.copyOf(degradedBooks))))
+                    .onErrorMap(this::toBookException);
+        }).transform(options.getInstrumentation().flux("getBooksPartial"));
+    }
+
+    private DegradedBook degraded(long bookId, Throwable throwable) {
+        log.warn("Reviews for book " + bookId + " degraded: " + throwable);
+        var reason = throwable instanceof TimeoutException
+                ? DegradedBook.Reason.TIMEOUT
+                : DegradedBook.Reason.ERROR;
+        return new DegradedBook(bookId, reason, throwable.getMessage());
+    }
+
+    public Flux<Book> getBooksBatched() {
+        return getBooksBatched(DEFAULT_BATCH_SIZE, DEFAULT_BATCH_WAIT);
+    }
+
+    //En vez de un llamado a getReviews por cada libro (N+1), los BookInfo se agrupan en
+    //lotes de máximo batchSize elementos o lo que llegue en maxWait, y por cada lote se
+    //hace un único llamado a getReviewsForBooks. Los lotes siempre se emiten en el orden
+    //del catálogo, sin importar la opción ordered
+    public Flux<Book> getBooksBatched(int batchSize, Duration maxWait) {
+        return allBookInfos()
+                .bufferTimeout(batchSize, maxWait)
+                .flatMapSequential(this::toBooks,
+                        options.getMaxConcurrency(), options.getPrefetch())
+                .subscribeOn(options.getScheduler())
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBooksBatched"));
+    }
+
+    public Flux<Book> getBooksEnriched(UnaryOperator<Book> enrichment) {
+        return getBooksEnriched(enrichment, EnrichmentOptions.defaults());
+    }
+
+    //Etapa para trabajo de CPU por libro (agregar ratings, normalizar texto, puntajes):
+    //los libros se reparten en rails (ParallelFlux) que corren cada uno en un hilo del
+    //scheduler, así el enrichment usa todos los cores en vez de uno.
+    //Con ordered los libros se leen del catálogo por páginas en orden de bookId
+    //(getBooksFrom); parallel los reparte por turnos, así que cada rail también queda en
+    //orden y ordered() los puede mezclar de vuelta comparando solo la cabeza de cada rail,
+    //sin juntar todo para ordenarlo
+    public Flux<Book> getBooksEnriched(UnaryOperator<Book> enrichment, EnrichmentOptions enrichmentOptions) {
+        var books = enrichmentOptions.isOrdered()
+                ? getBooksFrom(BookInfoService.START, ENRICHMENT_PAGE_SIZE)
+                : getBooks();
+        var rails = books
+                .parallel(enrichmentOptions.getParallelism(), enrichmentOptions.getPrefetch())
+                .runOn(enrichmentOptions.getScheduler(), enrichmentOptions.getPrefetch())
+                .map(enrichment);
+        var enriched = enrichmentOptions.isOrdered()
+                ? rails.ordered(BY_BOOK_ID, enrichmentOptions.getPrefetch())
+                : rails.sequential(enrichmentOptions.getPrefetch());
+
+        return enriched
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBooksEnriched"));
+    }
+
+    private Flux<Book> toBooks(List<BookInfo> batch) {
+        var bookIds = batch.stream()
+                .map(BookInfo::getBookId)
+                .collect(Collectors.toList());
+
+        return resilience.getReviewBreaker()
+                .protect(Mono.defer(() -> reviewService.getReviewsForBooks(bookIds)))
+                .flatMapIterable(reviewsByBook -> toBooks(batch, reviewsByBook));
+    }
+
+    private List<Book> toBooks(List<BookInfo> batch, Map<Long, List<Review>> reviewsByBook) {
+        return batch.stream()
+                .map(bookInfo -> new Book(bookInfo,
+                        reviewsByBook.getOrDefault(bookInfo.getBookId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     public Flux<Book> getBooksRetry() {
-        var allBooks = bookInfoService.getBooks();
-        return allBooks
-                .flatMap(bookInfo -> {
+        var allBooks = allBookInfos();
+        return aggregate(allBooks, bookInfo -> {
                     Mono<List<Review>> reviews =
-                            reviewService.getReviews(bookInfo.getBookId()).collectList();
+                            reviews(bookInfo.getBookId()).collectList();
                     return reviews
                             .map(review -> new Book(bookInfo,review));
                 })
-                .onErrorMap(throwable -> {
-                    log.error("Exception is :" + throwable);
-                    return new BookException("Exception occurred while fetching Books");
-                })
-                //Las veces que se require reintentar, sino intenta indefinidamente
-                .retry(3)
-                .log();
+                .onErrorMap(this::toBookException)
+                //Las veces que se require reintentar, sino intenta indefinidamente. Cada
+                //reintento gasta un token del presupuesto compartido
+                .retryWhen(resilience.immediateRetry())
+                .transform(options.getInstrumentation().flux("getBooksRetry"));
     }
 
     public Flux<Book> getBooksRetryWhen() {
-        //var retrySpecs = getRetryBackoffSpec();
-        var allBooks = bookInfoService.getBooks();
-        return allBooks
-                .flatMap(bookInfo -> {
+        var allBooks = allBookInfos();
+        return aggregate(allBooks, bookInfo -> {
                     Mono<List<Review>> reviews =
-                            reviewService.getReviews(bookInfo.getBookId()).collectList();
+                            reviews(bookInfo.getBookId()).collectList();
                     return reviews
                             .map(review -> new Book(bookInfo,review));
                 })
-                .onErrorMap(throwable -> {
-                    log.error("Exception is :" + throwable);
-                    return new BookException("Exception occurred while fetching Books");
-                })
-                .retryWhen(getRetryBackoffSpec())
-                .log();
+                .onErrorMap(this::toBookException)
+                .retryWhen(resilience.backoffRetry())
+                .transform(options.getInstrumentation().flux("getBooksRetryWhen"));
+    }
+
+    //Aplica las opciones de concurrencia, prefetch, orden y scheduler al flatMap que
+    //convierte cada BookInfo en un Book (o ColumnarBook). Con ordered se usa
+    //flatMapSequential, igual que en fruitsFluxMergeWithSequential
+    private <T> Flux<T> aggregate(Flux<BookInfo> bookInfos,
+                                  Function<BookInfo, Mono<T>> toBook) {
+        var books = options.isOrdered()
+                ? bookInfos.flatMapSequential(toBook,
+                        options.getMaxConcurrency(), options.getPrefetch())
+                : bookInfos.flatMap(toBook,
+                        options.getMaxConcurrency(), options.getPrefetch());
+
+        return books.subscribeOn(options.getScheduler());
+    }
+
+    //Alternativa a getBooks con las reviews en columnas (ReviewBatch), para calcular sobre
+    //los ratings sin un objeto por review
+    public Flux<ColumnarBook> getBooksColumnar() {
+        return aggregate(allBookInfos(), bookInfo -> reviewBatch(bookInfo.getBookId())
+                        .map(reviews -> new ColumnarBook(bookInfo,reviews)))
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBooksColumnar"));
+    }
+
+    public Mono<ColumnarBook> getBookByIdColumnar(long bookId) {
+        var book = resilience.getBookInfoBreaker()
+                .protect(Mono.defer(() -> bookInfoService.getBookById(bookId)));
+
+        return book
+                .zipWith(reviewBatch(bookId),(b,r) -> new ColumnarBook(b,r))
+                .subscribeOn(options.getScheduler())
+                .transform(options.getInstrumentation().mono("getBookByIdColumnar"));
+    }
+
+    //Perfil de ratings de un libro calculado mientras llegan las reviews, sin collectList:
+    //la memoria es la misma tenga el libro 2 o 2 millones de reviews
+    public Mono<BookSummary> getBookSummary(long bookId) {
+        return reviews(bookId)
+                .reduceWith(() -> new BookSummary(bookId), BookSummary::add)
+                .onErrorMap(this::toBookException)
+                .subscribeOn(options.getScheduler())
+                .transform(options.getInstrumentation().mono("getBookSummary"));
+    }
+
+    public Flux<BookSummary> getBookSummaries() {
+        return aggregate(allBookInfos(), bookInfo -> reviews(bookInfo.getBookId())
+                        .reduceWith(() -> new BookSummary(bookInfo.getBookId()), BookSummary::add))
+                .onErrorMap(this::toBookException)
+                .transform(options.getInstrumentation().flux("getBookSummaries"));
+    }
+
+        //Los llamados a los servicios pasan por su circuit breaker. defer para que una
+        //excepción lanzada al armar el flujo cuente como fallo del servicio
+    private Flux<BookInfo> allBookInfos() {
+        return resilience.getBookInfoBreaker()
+                .protect(Flux.defer(() -> bookInfoService.getBooks()));
     }
 
-        //El RetryBackoffSpec indica cada cuántos segundos se debe volver a hacer el Retry
-        //En este caso solo se hace el retry cuando el erro es de tipo BookException
-    private RetryBackoffSpec getRetryBackoffSpec() {
-        return Retry.backoff(
-                3,
-                Duration.ofMillis(1000)
-        ).filter(throwable -> throwable instanceof BookException)
-                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) ->
-                        Exceptions.propagate(retrySignal.failure())
-                );
+    private Flux<Review> reviews(long bookId) {
+        return resilience.getReviewBreaker()
+                .protect(Flux.defer(() -> reviewService.getReviews(bookId)));
+    }
+
+    private Mono<ReviewBatch> reviewBatch(long bookId) {
+        return resilience.getReviewBreaker()
+                .protect(Mono.defer(() -> reviewService.getReviewBatch(bookId)));
+    }
+
+        //Los BookException (por ejemplo el del breaker abierto) se dejan pasar tal cual
+        //para que el retry pueda distinguirlos
+    private Throwable toBookException(Throwable throwable) {
+        if (throwable instanceof BookException)
+            return throwable;
+        log.error("Exception is :" + throwable);
+        return new BookException("Exception occurred while fetching Books");
     }
 
         //El llamado a bookInfoService trae un mono y el reviewService trae un Flux, 
-        //el zipWith me une en el orden que le indico 
+        //el zipWith me une en el orden que le indico. Cada llamado va por su hedger, que
+        //manda un duplicado si el primero se demora (solo si se configuró)
     public Mono<Book> getBookById(long bookId) {
-        var book = bookInfoService.getBookById(bookId);
-        var review = reviewService
-                .getReviews(bookId)
-                .collectList();
+        var book = resilience.getBookInfoHedger()
+                .hedge(() -> resilience.getBookInfoBreaker()
+                        .protect(Mono.defer(() -> bookInfoService.getBookById(bookId))));
+        var review = resilience.getReviewHedger()
+                .hedge(() -> reviews(bookId)
+                        .collectList());
 
         return  book
-                .zipWith(review,(b,r) -> new Book(b,r));
+                .zipWith(review,(b,r) -> new Book(b,r))
+                .subscribeOn(options.getScheduler())
+                .transform(options.getInstrumentation().mono("getBookById"));
+
+    }
 
+    //Igual que getBookById, pero los llamados que llegan dentro de collapseWindow (o hasta
+    //juntar collapseMaxBatchSize) se agrupan: un solo getBooksByIds y un solo
+    //getReviewsForBooks por lote, en vez de dos llamados por id. Cada Mono recibe su libro
+    //cuando vuelve el lote
+    public Mono<Book> getBookByIdBatched(long bookId) {
+        return bookInfoLoader.load(bookId)
+                .zipWith(reviewLoader.load(bookId).defaultIfEmpty(List.of()),(b,r) -> new Book(b,r))
+                .subscribeOn(options.getScheduler())
+                .transform(options.getInstrumentation().mono("getBookByIdBatched"));
     }
 }
@@ -0,0 +1,34 @@
+package com.dailycodebuffer.reactiveprogramming.services;
+
+import lombok.Builder;
+import lombok.Value;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+//Parámetros de BookService.getBooksEnriched: en cuántos rails se reparte el trabajo, en
+//qué scheduler corren y si los libros vuelven a juntarse en orden de bookId
+@Value
+@Builder
+public class EnrichmentOptions {
+
+    //Un rail por core, igual que el tamaño de Schedulers.parallel()
+    @Builder.Default
+    int parallelism = Schedulers.DEFAULT_POOL_SIZE;
+
+    //Tiene que tener al menos parallelism hilos para que los rails corran a la vez
+    @Builder.Default
+    Scheduler scheduler = Schedulers.parallel();
+
+    //true: los libros salen en orden de bookId. false: en el orden en que terminan
+    @Builder.Default
+    boolean ordered = false;
+
+    //Elementos que cada rail pide por adelantado
+    @Builder.Default
+    int prefetch = Queues.SMALL_BUFFER_SIZE;
+
+    public static EnrichmentOptions defaults() {
+        return EnrichmentOptions.builder().build();
+    }
+}
@@ -1,18 +1,46 @@
 package com.dailycodebuffer.reactiveprogramming.services;
 
 import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.domain.ReviewBatch;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ReviewService {
 
     public Flux<Review> getReviews(long bookId) {
-        var reviewList = List.of(
+        return Flux.fromIterable(reviewsOf(bookId));
+    }
+
+    //Versión en lote de getReviews: un solo llamado trae los reviews de todos los libros
+    //pedidos, agrupados por bookId. Los libros sin reviews no aparecen en el mapa
+    public Mono<Map<Long, List<Review>>> getReviewsForBooks(Collection<Long> bookIds) {
+        return Mono.fromSupplier(() -> {
+            Map<Long, List<Review>> reviewsByBook = new LinkedHashMap<>();
+            for (Long bookId : bookIds) {
+                reviewsByBook.computeIfAbsent(bookId, this::reviewsOf);
+            }
+            return reviewsByBook;
+        });
+    }
+
+    //Las reviews de un libro en columnas (ReviewBatch). Esta versión arma las columnas a
+    //partir de getReviews; un backend que ya tenga los datos en columnas la puede
+    //sobrescribir para no crear un Review por fila
+    public Mono<ReviewBatch> getReviewBatch(long bookId) {
+        return getReviews(bookId)
+                .reduceWith(() -> ReviewBatch.builder(bookId), ReviewBatch.Builder::add)
+                .map(ReviewBatch.Builder::build);
+    }
+
+    private List<Review> reviewsOf(long bookId) {
+        return List.of(
                 new Review(1,bookId,9.1,"Good Book"),
                 new Review(2,bookId,8.6,"Worth Reading")
         );
-
-        return Flux.fromIterable(reviewList);
     }
 }
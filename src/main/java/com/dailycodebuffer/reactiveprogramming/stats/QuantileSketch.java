@@ -0,0 +1,164 @@
+package com.dailycodebuffer.reactiveprogramming.stats;
+
+//Sketch de percentiles con error relativo acotado (la idea de DDSketch). Cada valor cae
+//en el bucket ceil(log_gamma(|v|)), con gamma = (1 + a) / (1 - a), y el percentil que se
+//devuelve está a menos de a (relativeAccuracy) del valor real. Dos sketches con la misma
+//precisión se combinan sumando los buckets, así que sirven para unir resultados de
+//varios shards. La memoria no depende de cuántos valores se agreguen: a lo sumo
+//maxBuckets contadores por signo, y si el rango no cabe se juntan los buckets más bajos
+public class QuantileSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    private final Store positive;
+    private final Store negative;
+    private long zeroCount;
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1)
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+        this.positive = new Store(maxBuckets);
+        this.negative = new Store(maxBuckets);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value))
+            return;
+        if (value > MIN_INDEXABLE)
+            positive.add(index(value), 1);
+        else if (value < -MIN_INDEXABLE)
+            negative.add(index(-value), 1);
+        else
+            zeroCount++;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy)
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    public long getCount() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    //NaN si está vacío
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("quantile must be in [0, 1]");
+        var count = getCount();
+        if (count == 0)
+            return Double.NaN;
+
+        var rank = (long) Math.floor(quantile * (count - 1));
+        //Primero los negativos, del más negativo (índice más alto) al más cercano a cero
+        if (rank < negative.total)
+            return -value(negative.indexForRankDescending(rank));
+        rank -= negative.total;
+        if (rank < zeroCount)
+            return 0;
+        rank -= zeroCount;
+        return value(positive.indexForRankAscending(rank));
+    }
+
+    public QuantileSketch copy() {
+        var copy = new QuantileSketch(relativeAccuracy, maxBuckets);
+        copy.merge(this);
+        return copy;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    //Contadores para un rango continuo de índices [offset, offset + counts.length)
+    private static class Store {
+        private final int maxBuckets;
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        private Store(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        private void add(int index, long count) {
+            if (count == 0)
+                return;
+            if (counts.length == 0) {
+                counts = new long[8];
+                offset = index - 4;
+            }
+            index = ensureCovered(index);
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        private void merge(Store other) {
+            for (int i = 0; i < other.counts.length; i++)
+                add(other.offset + i, other.counts[i]);
+        }
+
+        //Agranda el arreglo para que quepa index. Si el rango pasaría de maxBuckets los
+        //índices más bajos se juntan en el primer bucket (pierden precisión los valores
+        //más pequeños, que en ratings son los menos interesantes)
+        private int ensureCovered(int index) {
+            var low = Math.min(offset, index);
+            var high = Math.max(offset + counts.length - 1, index);
+            if (high - low + 1 > maxBuckets)
+                low = high - maxBuckets + 1;
+            if (low != offset || high - low + 1 > counts.length) {
+                var length = Math.min(maxBuckets, Math.max(high - low + 1, counts.length * 2));
+                if (low + length - 1 < high)
+                    length = high - low + 1;
+                var resized = new long[length];
+                for (int i = 0; i < counts.length; i++) {
+                    var target = Math.max(offset + i, low) - low;
+                    resized[target] += counts[i];
+                }
+                counts = resized;
+                offset = low;
+            }
+            return Math.max(index, offset);
+        }
+
+        private int indexForRankAscending(long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank)
+                    return offset + i;
+            }
+            return offset + counts.length - 1;
+        }
+
+        private int indexForRankDescending(long rank) {
+            long seen = 0;
+            for (int i = counts.length - 1; i >= 0; i--) {
+                seen += counts[i];
+                if (seen > rank)
+                    return offset + i;
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.dailycodebuffer.reactiveprogramming.store;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+
+//BookInfoService respaldado por un MappedCatalogStore. getBookById va por el índice y lee
+//el registro directo del mapeo; getBooks recorre los registros en orden, uno por request
+//del suscriptor, así que nunca tiene más que un libro en el heap
+public class MappedBookInfoService extends BookInfoService {
+
+    private final MappedCatalogStore store;
+
+    public MappedBookInfoService(MappedCatalogStore store) {
+        this.store = store;
+    }
+
+    //Los registros reemplazados por una actualización se saltan
+    @Override
+    public Flux<BookInfo> getBooks() {
+        return Flux.defer(() -> {
+            var records = store.records();
+            return Flux.<BookInfo, Long>generate(() -> 0L, (recordNumber, sink) -> {
+                var next = nextCurrent(recordNumber, records);
+                if (next < records)
+                    sink.next(store.read(next));
+                else
+                    sink.complete();
+                return next + 1;
+            });
+        });
+    }
+
+    //Vacío si el libro no existe
+    @Override
+    public Mono<BookInfo> getBookById(long bookId) {
+        return Mono.fromSupplier(() -> store.get(bookId));
+    }
+
+    //Si los registros están en orden de bookId la página sale de una búsqueda binaria;
+    //si no, se usa la versión genérica que recorre todo el catálogo
+    @Override
+    public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+        if (!store.isSorted())
+            return super.getBooksPage(afterBookId, pageSize);
+
+        return Mono.fromSupplier(() -> {
+            var records = store.records();
+            var books = new ArrayList<BookInfo>(pageSize + 1);
+            var recordNumber = nextCurrent(store.firstRecordAfter(afterBookId), records);
+            while (recordNumber < records && books.size() <= pageSize) {
+                books.add(store.read(recordNumber));
+                recordNumber = nextCurrent(recordNumber + 1, records);
+            }
+            return toPage(books, pageSize);
+        });
+    }
+
+    public Mono<Void> save(BookInfo bookInfo) {
+        return Mono.fromRunnable(() -> store.put(bookInfo));
+    }
+
+    private long nextCurrent(long recordNumber, long records) {
+        while (recordNumber < records && !store.isCurrent(recordNumber))
+            recordNumber++;
+        return recordNumber;
+    }
+}
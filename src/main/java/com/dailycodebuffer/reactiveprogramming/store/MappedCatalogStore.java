@@ -0,0 +1,272 @@
+package com.dailycodebuffer.reactiveprogramming.store;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//Catálogo persistente en dos archivos mapeados en memoria:
+//- catalog.dat: encabezado y registros de tamaño fijo (RECORD_SIZE bytes), uno por cada
+//  put, en el orden en que se agregaron.
+//- catalog.idx: índice bookId -> número de registro, una tabla hash con direccionamiento
+//  abierto (linear probing) de slots de 16 bytes [bookId][número de registro + 1].
+//Todo vive en el page cache del sistema operativo y no en el heap, así que el catálogo
+//puede ser mucho más grande que la memoria de la JVM, y al reiniciar no hay que cargar
+//nada: se vuelven a mapear los archivos y las páginas que estaban calientes siguen ahí.
+//Los registros nunca se sobrescriben: actualizar un libro escribe un registro nuevo al
+//final y después cambia su slot del índice, así un lector nunca ve un registro a medio
+//escribir. El registro viejo queda como basura que ocupa capacidad y que los recorridos
+//saltan (isCurrent).
+//Las lecturas no toman locks; las escrituras se serializan con synchronized. Orden de
+//publicación: primero el registro, después el número de registros (volatile) y al final
+//el slot del índice con release, que los lectores leen con acquire
+public class MappedCatalogStore implements Closeable {
+
+    static final int RECORD_SIZE = 256;
+    static final int MAX_TITLE_BYTES = 128;
+    static final int MAX_AUTHOR_BYTES = 80;
+    static final int MAX_ISBN_BYTES = 32;
+
+    private static final String DATA_FILE = "catalog.dat";
+    private static final String INDEX_FILE = "catalog.idx";
+    private static final int MAGIC = 0x424F4F4B;
+    private static final int VERSION = 2;
+    private static final int SLOT_SIZE = 16;
+
+    //Encabezado, ocupa lo mismo que un registro para que los registros queden alineados
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_COUNT = 16;
+    private static final int HEADER_SORTED = 24;
+    private static final int HEADER_BOOKS = 32;
+
+    //Registro: [bookId:8][title:2+128][author:2+80][isbn:2+32][padding]
+    private static final int TITLE_OFFSET = 8;
+    private static final int AUTHOR_OFFSET = TITLE_OFFSET + 2 + MAX_TITLE_BYTES;
+    private static final int ISBN_OFFSET = AUTHOR_OFFSET + 2 + MAX_AUTHOR_BYTES;
+
+    private static final ThreadLocal<CharsetDecoder> DECODER
+            = ThreadLocal.withInitial(StandardCharsets.UTF_8::newDecoder);
+    private static final ThreadLocal<CharBuffer> CHARS
+            = ThreadLocal.withInitial(() -> CharBuffer.allocate(MAX_TITLE_BYTES));
+
+    private final MappedRegion data;
+    private final MappedRegion index;
+    private final long capacity;
+    private final long slots;
+
+    private volatile long count;
+    private volatile long books;
+    private volatile boolean sorted;
+
+    private MappedCatalogStore(MappedRegion data, MappedRegion index, long capacity, long slots) {
+        this.data = data;
+        this.index = index;
+        this.capacity = capacity;
+        this.slots = slots;
+    }
+
+    //Abre el catálogo del directorio o lo crea con espacio para capacity registros. Si ya
+    //existe se usa la capacidad con la que se creó
+    public static MappedCatalogStore open(Path directory, long capacity) throws IOException {
+        Files.createDirectories(directory);
+        var dataFile = directory.resolve(DATA_FILE);
+        var exists = Files.exists(dataFile) && Files.size(dataFile) >= RECORD_SIZE;
+
+        if (exists) {
+            var header = new MappedRegion(dataFile, RECORD_SIZE);
+            if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION) {
+                header.close();
+                throw new IOException("Not a catalog file: " + dataFile);
+            }
+            capacity = header.getLong(HEADER_CAPACITY);
+            header.close();
+        }
+
+        var slots = Long.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        var data = new MappedRegion(dataFile, RECORD_SIZE * (capacity + 1));
+        var index = new MappedRegion(directory.resolve(INDEX_FILE), SLOT_SIZE * slots);
+        var store = new MappedCatalogStore(data, index, capacity, slots);
+
+        if (exists) {
+            store.count = data.getLong(HEADER_COUNT);
+            store.books = data.getLong(HEADER_BOOKS);
+            store.sorted = data.getInt(HEADER_SORTED) == 1;
+        } else {
+            data.putInt(HEADER_MAGIC, MAGIC);
+            data.putInt(HEADER_VERSION, VERSION);
+            data.putLong(HEADER_CAPACITY, capacity);
+            data.putLong(HEADER_COUNT, 0);
+            data.putLong(HEADER_BOOKS, 0);
+            data.putInt(HEADER_SORTED, 1);
+            store.sorted = true;
+        }
+        return store;
+    }
+
+    //Agrega el libro o lo reemplaza si el bookId ya existe. En los dos casos se usa un
+    //registro nuevo, así que cada actualización también gasta capacidad
+    public synchronized void put(BookInfo bookInfo) {
+        if (count == capacity)
+            throw new IllegalStateException("Catalog is full (" + capacity + " records)");
+
+        var slot = findSlot(bookInfo.getBookId());
+        var isNew = index.getLongAcquire(slot + 8) == 0;
+        var recordNumber = count;
+        if (sorted && recordNumber > 0 && bookInfo.getBookId() < bookIdAt(recordNumber - 1)) {
+            sorted = false;
+            data.putInt(HEADER_SORTED, 0);
+        }
+        writeRecord(recordNumber, bookInfo);
+        data.putLong(HEADER_COUNT, recordNumber + 1);
+        count = recordNumber + 1;
+        if (isNew) {
+            data.putLong(HEADER_BOOKS, books + 1);
+            books = books + 1;
+            index.putLong(slot, bookInfo.getBookId());
+        }
+        index.putLongRelease(slot + 8, recordNumber + 1);
+    }
+
+    //null si no existe
+    public BookInfo get(long bookId) {
+        var recordNumber = index.getLongAcquire(findSlot(bookId) + 8) - 1;
+        return recordNumber < 0 || recordNumber >= count ? null : read(recordNumber);
+    }
+
+    public BookInfo read(long recordNumber) {
+        if (recordNumber < 0 || recordNumber >= count)
+            throw new IndexOutOfBoundsException("Record " + recordNumber + " of " + count);
+        var offset = recordOffset(recordNumber);
+        return new BookInfo(data.getLong(offset),
+                readString(offset + TITLE_OFFSET),
+                readString(offset + AUTHOR_OFFSET),
+                readString(offset + ISBN_OFFSET));
+    }
+
+    //false si el registro fue reemplazado por una actualización posterior del libro
+    public boolean isCurrent(long recordNumber) {
+        var slot = findSlot(bookIdAt(recordNumber));
+        return index.getLongAcquire(slot + 8) == recordNumber + 1;
+    }
+
+    public long bookIdAt(long recordNumber) {
+        return data.getLong(recordOffset(recordNumber));
+    }
+
+    //Cantidad de libros distintos
+    public long size() {
+        return books;
+    }
+
+    //Cantidad de registros escritos, incluidos los reemplazados
+    public long records() {
+        return count;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    //true si los registros están en orden de bookId (repetidos incluidos); en ese caso
+    //sirven para paginar por llave con búsqueda binaria
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    //Primer registro con bookId mayor a afterBookId. Solo tiene sentido si isSorted()
+    public long firstRecordAfter(long afterBookId) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (bookIdAt(middle) <= afterBookId)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    //Obliga a escribir a disco lo que está en el page cache
+    public void flush() {
+        data.flush();
+        index.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        index.close();
+    }
+
+    private long recordOffset(long recordNumber) {
+        return (long) RECORD_SIZE * (recordNumber + 1);
+    }
+
+    //Slot del bookId o el primer slot vacío donde iría. El número de registro se lee
+    //primero (acquire), así si el slot está ocupado el bookId ya es visible
+    private long findSlot(long bookId) {
+        var mask = slots - 1;
+        var position = mix(bookId) & mask;
+        while (true) {
+            var slot = position * SLOT_SIZE;
+            if (index.getLongAcquire(slot + 8) == 0 || index.getLong(slot) == bookId)
+                return slot;
+            position = (position + 1) & mask;
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private void writeRecord(long recordNumber, BookInfo bookInfo) {
+        var offset = recordOffset(recordNumber);
+        data.putLong(offset, bookInfo.getBookId());
+        writeString(offset + TITLE_OFFSET, bookInfo.getTitle(), MAX_TITLE_BYTES, "title");
+        writeString(offset + AUTHOR_OFFSET, bookInfo.getAuthor(), MAX_AUTHOR_BYTES, "author");
+        writeString(offset + ISBN_OFFSET, bookInfo.getISBN(), MAX_ISBN_BYTES, "ISBN");
+    }
+
+    //Largo -1 para null
+    private void writeString(long offset, String value, int maxBytes, String field) {
+        if (value == null) {
+            data.putShort(offset, (short) -1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes)
+            throw new IllegalArgumentException(field + " longer than " + maxBytes + " bytes: " + value);
+        data.putShort(offset, (short) bytes.length);
+        data.put(offset + 2, bytes);
+    }
+
+    //Se decodifica directo desde la vista del mapeo a un CharBuffer reutilizado por hilo,
+    //sin copiar los bytes a un arreglo intermedio
+    private String readString(long offset) {
+        var length = data.getShort(offset);
+        if (length < 0)
+            return null;
+        var chars = CHARS.get().clear();
+        var decoder = DECODER.get().reset();
+        try {
+            var result = decoder.decode(data.view(offset + 2, length), chars, true);
+            if (result.isError())
+                result.throwException();
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Corrupted record at offset " + offset, e);
+        }
+        return chars.flip().toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.dailycodebuffer.reactiveprogramming.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+//Un archivo mapeado completo en memoria. Un MappedByteBuffer no puede pasar de 2GB, así
+//que se mapea en segmentos de 1GB; quien escribe se encarga de que ningún registro quede
+//partido entre dos segmentos (registros de tamaño potencia de 2 alineados lo garantizan)
+class MappedRegion implements Closeable {
+
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    //Acceso con acquire/release a un long del mapeo, para publicar un valor a los lectores
+    //que no toman locks (ver MappedCatalogStore)
+    private static final VarHandle LONG_VIEW
+            = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    MappedRegion(Path file, long size) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < size) {
+            //Se escribe el último byte para que el archivo tenga el tamaño completo
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        }
+        for (long position = 0; position < size; position += SEGMENT_SIZE) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position,
+                    Math.min(SEGMENT_SIZE, size - position)));
+        }
+    }
+
+    long getLong(long offset) {
+        return segment(offset).getLong(local(offset));
+    }
+
+    void putLong(long offset, long value) {
+        segment(offset).putLong(local(offset), value);
+    }
+
+    //offset tiene que estar alineado a 8 bytes
+    long getLongAcquire(long offset) {
+        return (long) LONG_VIEW.getAcquire(segment(offset), local(offset));
+    }
+
+    void putLongRelease(long offset, long value) {
+        LONG_VIEW.setRelease(segment(offset), local(offset), value);
+    }
+
+    int getInt(long offset) {
+        return segment(offset).getInt(local(offset));
+    }
+
+    void putInt(long offset, int value) {
+        segment(offset).putInt(local(offset), value);
+    }
+
+    short getShort(long offset) {
+        return segment(offset).getShort(local(offset));
+    }
+
+    void putShort(long offset, short value) {
+        segment(offset).putShort(local(offset), value);
+    }
+
+    //Vista sobre el archivo, comparte la memoria del mapeo (no copia)
+    ByteBuffer view(long offset, int length) {
+        var view = segment(offset).duplicate();
+        view.position(local(offset)).limit(local(offset) + length);
+        return view;
+    }
+
+    void put(long offset, byte[] bytes) {
+        view(offset, bytes.length).put(bytes);
+    }
+
+    void flush() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        segments.clear();
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        return segments.get((int) (offset >>> SEGMENT_SHIFT));
+    }
+
+    private static int local(long offset) {
+        return (int) (offset & (SEGMENT_SIZE - 1));
+    }
+}
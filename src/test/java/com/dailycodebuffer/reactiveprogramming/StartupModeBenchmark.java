@@ -0,0 +1,102 @@
+package com.dailycodebuffer.reactiveprogramming;
+
+import com.dailycodebuffer.reactiveprogramming.instrumentation.PipelineInstrumentation;
+import com.dailycodebuffer.reactiveprogramming.services.BookAggregationOptions;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.springframework.boot.SpringApplication;
+import reactor.core.publisher.Flux;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Supplier;
+
+//Compara los dos modos de StartupMode. El ReactorDebugAgent no se puede desinstalar, así
+//que cada modo corre en su propia JVM: sin argumentos este main lanza una JVM por modo
+//con el mismo classpath. Se corre con
+//  mvn -Pstartup-benchmark test-compile exec:exec
+//Cada JVM mide el arranque (agente + contexto de Spring) y después el costo de armar y
+//correr un pipeline de 10 operadores y el de BookService.getBooks
+public class StartupModeBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+    private static final int OPERATORS = 10;
+    private static final int ELEMENTS = 100;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            for (var mode : StartupMode.values())
+                fork(mode);
+            return;
+        }
+        run(StartupMode.valueOf(args[0]));
+    }
+
+    private static void fork(StartupMode mode) throws Exception {
+        var java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        var process = new ProcessBuilder(List.of(java,
+                "-cp", System.getProperty("java.class.path"),
+                StartupModeBenchmark.class.getName(), mode.name()))
+                .inheritIO()
+                .start();
+        process.waitFor();
+    }
+
+    private static void run(StartupMode mode) {
+        var start = System.nanoTime();
+        mode.installDebugging();
+        var agentInstalled = System.nanoTime();
+        var context = SpringApplication.run(ReactiveProgrammingTutorialApplication.class,
+                "--server.port=0", "--logging.level.root=WARN", "--spring.main.banner-mode=off");
+        var started = System.nanoTime();
+        context.close();
+
+        var pipelineNanos = Pipelines.measure(Pipelines::operators);
+        var booksNanos = Pipelines.measure(Pipelines::books);
+
+        System.out.printf("%-10s agent init %6d ms | context start %6d ms | "
+                        + "pipeline %6d ns/op (%.1f ns per operator) | getBooks %6d ns/op%n",
+                mode,
+                (agentInstalled - start) / 1_000_000,
+                (started - agentInstalled) / 1_000_000,
+                pipelineNanos,
+                (double) pipelineNanos / OPERATORS,
+                booksNanos);
+    }
+
+    //Clase aparte para que se cargue después de instalar el agente: el agente solo
+    //instrumenta las clases que se cargan después de init()
+    private static class Pipelines {
+
+        private static final BookService BOOK_SERVICE = new BookService(
+                new BookInfoService(), new ReviewService(),
+                BookAggregationOptions.builder()
+                        .instrumentation(PipelineInstrumentation.noop().withCheckpoints())
+                        .build());
+
+        private static long measure(Supplier<Flux<?>> pipeline) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++)
+                pipeline.get().blockLast();
+            var start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++)
+                pipeline.get().blockLast();
+            return (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        }
+
+        //Se arma de nuevo en cada iteración porque el agente cobra al ensamblar los operadores
+        private static Flux<?> operators() {
+            var flux = Flux.range(0, ELEMENTS);
+            for (int i = 0; i < OPERATORS / 2; i++) {
+                flux = flux.map(value -> value + 1)
+                        .filter(value -> value >= 0);
+            }
+            return flux;
+        }
+
+        private static Flux<?> books() {
+            return BOOK_SERVICE.getBooks();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.dailycodebuffer.reactiveprogramming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupModeTest {
+
+    @Test
+    void debugByDefault() {
+        assertEquals(StartupMode.DEBUG, StartupMode.detect(name -> null, name -> null));
+    }
+
+    @Test
+    void productionWhenProdProfileIsActive() {
+        var properties = Map.of("spring.profiles.active", "cloud, prod");
+        assertEquals(StartupMode.PRODUCTION, StartupMode.detect(properties::get, name -> null));
+
+        var environment = Map.of("SPRING_PROFILES_ACTIVE", "prod");
+        assertEquals(StartupMode.PRODUCTION, StartupMode.detect(name -> null, environment::get));
+    }
+
+    @Test
+    void productionWhenProdProfileIsPassedAsArgument() {
+        String[] args = {"--server.port=0", "--spring.profiles.active=cloud,prod"};
+        assertEquals(StartupMode.PRODUCTION, StartupMode.detect(args, name -> null, name -> null));
+
+        //Los argumentos tienen precedencia sobre la propiedad y la variable de entorno
+        var environment = Map.of("SPRING_PROFILES_ACTIVE", "prod");
+        String[] devArgs = {"--spring.profiles.active=dev"};
+        assertEquals(StartupMode.DEBUG, StartupMode.detect(devArgs, name -> null, environment::get));
+
+        String[] agentArgs = {"--spring.profiles.active=prod", "--reactor.debug-agent=true"};
+        assertEquals(StartupMode.DEBUG, StartupMode.detect(agentArgs, name -> null, name -> null));
+    }
+
+    @Test
+    void explicitPropertyWinsOverProfile() {
+        var properties = Map.of(
+                "spring.profiles.active", "prod",
+                "reactor.debug-agent", "true");
+        assertEquals(StartupMode.DEBUG, StartupMode.detect(properties::get, name -> null));
+    }
+}
@@ -0,0 +1,93 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveDemandSubscriberTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong processingNanos = new AtomicLong();
+
+    private final AdaptiveDemandOptions options = AdaptiveDemandOptions.builder()
+            .initialDemand(8)
+            .maxDemand(256)
+            .targetLatency(Duration.ofMillis(100))
+            .build();
+
+    //El handler "tarda" lo que diga processingNanos
+    private <T> AdaptiveDemandSubscriber<T> subscriber() {
+        return new AdaptiveDemandSubscriber<>(value -> clock.addAndGet(processingNanos.get()),
+                options, clock::get, null);
+    }
+
+    @Test
+    void fastConsumerGrowsDemandUpToTarget() {
+        processingNanos.set(Duration.ofMillis(1).toNanos());
+        AdaptiveDemandSubscriber<Integer> subscriber = subscriber();
+        var maxRequest = new AtomicLong();
+
+        Flux.range(1, 20_000)
+                .doOnRequest(n -> maxRequest.accumulateAndGet(n, Math::max))
+                .subscribe(subscriber);
+
+        assertEquals(20_000, subscriber.processed());
+        //100ms de objetivo con 1ms por elemento: la demanda oscila (AIMD) entre 50 y 100
+        assertTrue(subscriber.currentDemand() >= 50 && subscriber.currentDemand() <= 101,
+                "demand " + subscriber.currentDemand());
+        assertTrue(maxRequest.get() <= 101);
+    }
+
+    @Test
+    void slowConsumerShrinksDemand() {
+        processingNanos.set(Duration.ofMillis(40).toNanos());
+        AdaptiveDemandSubscriber<Integer> subscriber = subscriber();
+
+        Flux.range(1, 200).subscribe(subscriber);
+
+        assertTrue(subscriber.currentDemand() <= 3, "demand " + subscriber.currentDemand());
+    }
+
+    @Test
+    void followsConsumerWhenItSlowsDown() {
+        processingNanos.set(Duration.ofMillis(1).toNanos());
+        AdaptiveDemandSubscriber<Integer> subscriber = subscriber();
+        var before = new AtomicInteger();
+
+        Flux.range(1, 10_000)
+                .doOnNext(i -> {
+                    if (i == 5_000) {
+                        before.set(subscriber.currentDemand());
+                        processingNanos.set(Duration.ofMillis(10).toNanos());
+                    }
+                })
+                .subscribe(subscriber);
+
+        assertTrue(subscriber.currentDemand() <= 11 && subscriber.currentDemand() < before.get(),
+                "demand " + subscriber.currentDemand() + " before " + before.get());
+    }
+
+    @Test
+    void consumeBookServiceFlux() {
+        var bookService = new BookService(new BookInfoService(), new ReviewService());
+        var titles = new AtomicInteger();
+
+        StepVerifier.create(AdaptiveDemandSubscriber.consume(bookService.getBooks(),
+                        book -> titles.incrementAndGet(), AdaptiveDemandOptions.defaults()))
+                .verifyComplete();
+        assertEquals(3, titles.get());
+
+        StepVerifier.create(AdaptiveDemandSubscriber.consume(Flux.error(new IllegalStateException()),
+                        value -> { }, AdaptiveDemandOptions.defaults()))
+                .verifyError(IllegalStateException.class);
+    }
+}
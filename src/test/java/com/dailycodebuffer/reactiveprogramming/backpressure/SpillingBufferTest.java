@@ -0,0 +1,181 @@
+package com.dailycodebuffer.reactiveprogramming.backpressure;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillingBufferTest {
+
+    @TempDir
+    Path directory;
+
+    private Flux<BookInfo> books(int count) {
+        return Flux.range(1, count)
+                .map(i -> new BookInfo(i, "Book " + i, i % 2 == 0 ? null : "Author " + i, "ISBN" + i));
+    }
+
+    private long filesInDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void spillsOverflowAndDrainsInOrder() throws IOException {
+        var buffer = new SpillingBuffer<>(100, directory, SpillCodec.binary(BookInfo.class));
+
+        StepVerifier.create(books(10_000).transform(buffer).map(BookInfo::getBookId), 0)
+                .then(() -> {
+                    assertEquals(9_900, buffer.spilledElements());
+                    assertTrue(buffer.spilledBytes() > 0);
+                })
+                .thenRequest(50)
+                .expectNextSequence(LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toList()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextSequence(LongStream.rangeClosed(51, 10_000).boxed().collect(Collectors.toList()))
+                .verifyComplete();
+
+        assertEquals(0, buffer.spilledElements());
+        assertEquals(0, buffer.spilledBytes());
+        assertEquals(9_900, buffer.totalSpilled());
+        assertTrue(buffer.peakSpilledBytes() > 9_900 * 10);
+        assertEquals(0, filesInDirectory());
+    }
+
+    @Test
+    void keepsOrderWhenProducerAndConsumerInterleave() {
+        var buffer = new SpillingBuffer<>(16, directory, SpillCodec.binary(BookInfo.class));
+
+        StepVerifier.create(books(5_000)
+                        .subscribeOn(Schedulers.parallel())
+                        .transform(buffer)
+                        .publishOn(Schedulers.boundedElastic(), 8)
+                        .map(BookInfo::getBookId)
+                        .buffer(500)
+                        .delayElements(Duration.ofMillis(5)),
+                        Long.MAX_VALUE)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        StepVerifier.create(books(2_000).transform(buffer).publishOn(Schedulers.boundedElastic(), 4)
+                        .map(BookInfo::getBookId).collectList())
+                .assertNext(ids -> assertEquals(LongStream.rangeClosed(1, 2_000).boxed()
+                        .collect(Collectors.toList()), ids))
+                .verifyComplete();
+    }
+
+    @Test
+    void spillsRecordsLargerThanIoBuffer() {
+        var buffer = new SpillingBuffer<>(1, directory, SpillCodec.binary(BookInfo.class));
+        var large = new BookInfo(2, "x".repeat(200_000), "Author", "ISBN");
+
+        StepVerifier.create(Flux.just(new BookInfo(1, "Small", "Author", "ISBN"), large,
+                        new BookInfo(3, "Small", "Author", "ISBN")).transform(buffer), 0)
+                .then(() -> assertEquals(2, buffer.spilledElements()))
+                .thenRequest(3)
+                .expectNextMatches(book -> book.getBookId() == 1)
+                .expectNext(large)
+                .expectNextMatches(book -> book.getBookId() == 3)
+                .verifyComplete();
+    }
+
+    @Test
+    void peekRefillsWithoutLosingElements() {
+        var queue = new SpillQueue<>(2, directory, SpillCodec.binary(BookInfo.class),
+                new SpillingBuffer.Metrics());
+        books(5).subscribe(queue::offer);
+
+        assertEquals(1, queue.poll().getBookId());
+        assertEquals(2, queue.poll().getBookId());
+        assertEquals(3, queue.peek().getBookId());
+        assertEquals(3, queue.peek().getBookId());
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.poll().getBookId());
+        assertEquals(4, queue.poll().getBookId());
+        assertEquals(5, queue.poll().getBookId());
+        assertNull(queue.peek());
+        queue.close();
+    }
+
+    @Test
+    void collectionMethodsSeeSpilledElements() {
+        var queue = new SpillQueue<>(2, directory, SpillCodec.binary(BookInfo.class),
+                new SpillingBuffer.Metrics());
+        books(5).subscribe(queue::offer);
+
+        assertTrue(queue.contains(new BookInfo(4, "Book 4", null, "ISBN4")));
+        assertTrue(queue.toString().contains("Book 5"));
+        assertTrue(queue.remove(new BookInfo(3, "Book 3", "Author 3", "ISBN3")));
+        assertFalse(queue.remove(new BookInfo(9, "Book 9", null, "ISBN9")));
+
+        var iterator = queue.iterator();
+        assertEquals(1, iterator.next().getBookId());
+        iterator.remove();
+
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.poll().getBookId());
+        assertEquals(4, queue.poll().getBookId());
+        assertEquals(5, queue.poll().getBookId());
+        assertTrue(queue.isEmpty());
+        queue.close();
+    }
+
+    @Test
+    void forwardsDownstreamContextToSource() {
+        var buffer = new SpillingBuffer<>(2, directory, SpillCodec.binary(BookInfo.class));
+        var source = Flux.deferContextual(context -> books(context.get("count")));
+
+        StepVerifier.create(source.transform(buffer).count().contextWrite(ctx -> ctx.put("count", 10)))
+                .expectNext(10L)
+                .verifyComplete();
+    }
+
+    @Test
+    void noFileWhenEverythingFitsInMemory() throws IOException {
+        var buffer = new SpillingBuffer<>(1_000, directory, SpillCodec.binary(BookInfo.class));
+
+        StepVerifier.create(books(500).transform(buffer), 0)
+                .then(() -> assertEquals(0, buffer.spilledElements()))
+                .thenRequest(500)
+                .expectNextCount(500)
+                .verifyComplete();
+        assertEquals(0, buffer.totalSpilled());
+        assertEquals(0, filesInDirectory());
+    }
+
+    @Test
+    void cancelDeletesSpillFile() throws IOException {
+        var buffer = new SpillingBuffer<>(10, directory, SpillCodec.binary(BookInfo.class));
+
+        StepVerifier.create(books(1_000).transform(buffer), 0)
+                .then(() -> assertEquals(990, buffer.spilledElements()))
+                .thenRequest(5)
+                .expectNextCount(5)
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, buffer.spilledElements());
+        assertEquals(0, filesInDirectory());
+    }
+
+    @Test
+    void propagatesUpstreamError() {
+        var buffer = new SpillingBuffer<>(10, directory, SpillCodec.binary(BookInfo.class));
+
+        StepVerifier.create(books(100).concatWith(Flux.error(new IllegalStateException())).transform(buffer))
+                .expectNextCount(100)
+                .verifyError(IllegalStateException.class);
+    }
+}
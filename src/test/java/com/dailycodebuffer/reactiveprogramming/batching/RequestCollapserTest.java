@@ -0,0 +1,116 @@
+package com.dailycodebuffer.reactiveprogramming.batching;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.BookAggregationOptions;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCollapserTest {
+
+    private final List<List<Long>> batches = new ArrayList<>();
+
+    //Devuelve el doble de cada llave, salvo las negativas que no existen
+    private final Function<List<Long>, Mono<Map<Long, Long>>> loader = keys -> {
+        batches.add(keys);
+        return Mono.just(keys.stream()
+                .filter(key -> key >= 0)
+                .collect(Collectors.toMap(Function.identity(), key -> key * 2)));
+    };
+
+    @Test
+    void collectsCallsWithinWindow() {
+        var timer = VirtualTimeScheduler.create();
+        var collapser = new RequestCollapser<>(loader, 100, Duration.ofMillis(5), timer);
+
+        var first = StepVerifier.create(collapser.load(1L)).expectNext(2L).expectComplete().verifyLater();
+        var second = StepVerifier.create(collapser.load(2L)).expectNext(4L).expectComplete().verifyLater();
+        var missing = StepVerifier.create(collapser.load(-1L)).expectComplete().verifyLater();
+        var duplicate = StepVerifier.create(collapser.load(1L)).expectNext(2L).expectComplete().verifyLater();
+
+        assertTrue(batches.isEmpty());
+        timer.advanceTimeBy(Duration.ofMillis(5));
+
+        first.verify(Duration.ofSeconds(1));
+        second.verify(Duration.ofSeconds(1));
+        missing.verify(Duration.ofSeconds(1));
+        duplicate.verify(Duration.ofSeconds(1));
+        assertEquals(List.of(List.of(1L, 2L, -1L)), batches);
+    }
+
+    @Test
+    void dispatchesWhenBatchIsFull() {
+        var timer = VirtualTimeScheduler.create();
+        var collapser = new RequestCollapser<>(loader, 3, Duration.ofSeconds(10), timer);
+
+        StepVerifier.create(Flux.range(1, 7).flatMap(i -> collapser.load((long) i)).take(6).count())
+                .expectNext(6L)
+                .verifyComplete();
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L)), batches);
+        assertEquals(2, collapser.batchCount());
+    }
+
+    @Test
+    void failedBatchFailsAllCallers() {
+        var collapser = new RequestCollapser<Long, Long>(keys -> Mono.error(new IllegalStateException("down")),
+                10, Duration.ofMillis(1));
+
+        StepVerifier.create(Flux.merge(collapser.load(1L), collapser.load(2L)))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void bookServiceCollapsesConcurrentGetBookById() {
+        var bookInfoCalls = new AtomicInteger();
+        var reviewCalls = new AtomicInteger();
+        var bookInfoService = new BookInfoService() {
+            @Override
+            public Mono<Map<Long, BookInfo>> getBooksByIds(Collection<Long> bookIds) {
+                bookInfoCalls.incrementAndGet();
+                return super.getBooksByIds(bookIds);
+            }
+        };
+        var reviewService = new ReviewService() {
+            @Override
+            public Mono<Map<Long, List<Review>>> getReviewsForBooks(Collection<Long> bookIds) {
+                reviewCalls.incrementAndGet();
+                return super.getReviewsForBooks(bookIds);
+            }
+        };
+        //Ventana larga para que los lotes salgan solo por tamaño
+        var options = BookAggregationOptions.builder()
+                .collapseWindow(Duration.ofSeconds(5))
+                .build();
+        var bookService = new BookService(bookInfoService, reviewService, options);
+
+        StepVerifier.create(Flux.range(1, 1000)
+                        .flatMap(i -> bookService.getBookByIdBatched(i), 1000)
+                        .filter(book -> book.getReviews().size() == 2)
+                        .count())
+                .expectNext(1000L)
+                .verifyComplete();
+
+        //Lotes de 100: 10 llamados a cada servicio en vez de 1000
+        assertEquals(10, bookInfoCalls.get());
+        assertEquals(10, reviewCalls.get());
+    }
+}
@@ -0,0 +1,93 @@
+package com.dailycodebuffer.reactiveprogramming.blocking;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BlockingServicesTest {
+
+    private final Set<Thread> callerThreads = ConcurrentHashMap.newKeySet();
+
+    //Simula un cliente JDBC: cada consulta bloquea el hilo 20ms
+    private final BlockingBookInfoSource books = new BlockingBookInfoSource() {
+        @Override
+        public List<BookInfo> findAll() {
+            block();
+            return List.of(new BookInfo(1, "Book One", "Author", "1"), new BookInfo(2, "Book Two", "Author", "2"));
+        }
+
+        @Override
+        public Optional<BookInfo> findById(long bookId) {
+            block();
+            return bookId > 0 ? Optional.of(new BookInfo(bookId, "Book " + bookId, "Author", "ISBN")) : Optional.empty();
+        }
+    };
+
+    private final BlockingReviewSource reviews = bookId -> {
+        block();
+        return List.of(new Review(bookId * 10, bookId, 8.0, "Fine"));
+    };
+
+    private void block() {
+        callerThreads.add(Thread.currentThread());
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void adaptsBlockingSourcesOffTheCallerThread() {
+        var bookService = new BookService(new BlockingBookInfoService(books), new BlockingReviewService(reviews));
+
+        StepVerifier.create(bookService.getBooks())
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(bookService.getBooksBatched())
+                .expectNextMatches(book -> book.getReviews().size() == 1)
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(new BlockingBookInfoService(books).getBookById(-1))
+                .verifyComplete();
+
+        assertFalse(callerThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    void manyConcurrentBlockingLookups() {
+        var service = new BlockingBookInfoService(books);
+
+        StepVerifier.create(Flux.range(1, 200)
+                        .flatMap(i -> service.getBookById(i), 200)
+                        .count())
+                .expectNext(200L)
+                .verifyComplete();
+    }
+
+    //Solo corre en un JDK con virtual threads: mvn test -Djvm=/ruta/al/jdk-21/bin/java
+    @Test
+    void tensOfThousandsOfLookupsOnVirtualThreads() {
+        assumeTrue(VirtualThreads.isAvailable());
+        var service = new BlockingBookInfoService(books);
+
+        StepVerifier.create(Flux.range(1, 20_000)
+                        .flatMap(i -> service.getBookById(i), 20_000)
+                        .count())
+                .expectNext(20_000L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+}
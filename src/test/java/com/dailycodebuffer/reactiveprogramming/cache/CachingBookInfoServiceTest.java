@@ -0,0 +1,102 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingBookInfoServiceTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final MutableClock clock = new MutableClock();
+
+    //Cuenta cuántas veces se llega al servicio real
+    private final BookInfoService countingService = new BookInfoService() {
+        @Override
+        public Mono<BookInfo> getBookById(long bookId) {
+            upstreamCalls.incrementAndGet();
+            return super.getBookById(bookId).delayElement(Duration.ofMillis(100));
+        }
+    };
+
+    @Test
+    void concurrentLookupsShareOneUpstreamCall() {
+        var cache = new CachingBookInfoService(countingService, 10, Duration.ofMinutes(1), clock);
+
+        var first = cache.getBookById(1);
+        var second = cache.getBookById(1);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(books -> assertSame(books.getT1(), books.getT2()))
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, cache.stats().getMisses());
+        assertEquals(1, cache.stats().getHits());
+    }
+
+    @Test
+    void failedLookupsAreNotCached() {
+        var failingOnce = new BookInfoService() {
+            @Override
+            public Mono<BookInfo> getBookById(long bookId) {
+                if (upstreamCalls.incrementAndGet() == 1)
+                    return Mono.error(new IllegalStateException("exception using test"));
+                return super.getBookById(bookId);
+            }
+        };
+        var cache = new CachingBookInfoService(failingOnce, 10, Duration.ofMinutes(1), clock);
+
+        StepVerifier.create(cache.getBookById(1))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(cache.getBookById(1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void entriesExpireAfterTtl() {
+        var cache = new CachingBookInfoService(countingService, 10, Duration.ofSeconds(30), clock);
+
+        cache.getBookById(1).block();
+        clock.advance(Duration.ofSeconds(10));
+        cache.getBookById(1).block();
+        assertEquals(1, upstreamCalls.get());
+
+        clock.advance(Duration.ofSeconds(30));
+        cache.getBookById(1).block();
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        var cache = new CachingBookInfoService(countingService, 2, Duration.ofMinutes(1), clock);
+
+        cache.getBookById(1).block();
+        cache.getBookById(2).block();
+        cache.getBookById(1).block();
+        cache.getBookById(3).block();
+
+        var stats = cache.stats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictions());
+
+        //El 2 fue el menos usado, entonces es el que tiene que volver al servicio real
+        cache.getBookById(1).block();
+        assertEquals(3, upstreamCalls.get());
+        cache.getBookById(2).block();
+        assertEquals(4, upstreamCalls.get());
+    }
+}
@@ -0,0 +1,119 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingReviewServiceTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final MutableClock clock = new MutableClock();
+
+    //Cada llamado al servicio real devuelve un comentario distinto para saber qué versión
+    //se está entregando
+    private final ReviewService versionedService = new ReviewService() {
+        @Override
+        public Flux<Review> getReviews(long bookId) {
+            var version = upstreamCalls.incrementAndGet();
+            return Flux.just(new Review(1, bookId, 9.1, "Version " + version));
+        }
+    };
+
+    private final CachingReviewService cache = new CachingReviewService(versionedService,
+            10, Duration.ofSeconds(10), Duration.ofSeconds(60), clock, Schedulers.immediate());
+
+    @Test
+    void freshEntryIsServedFromCache() {
+        expectComment(1, "Version 1");
+        clock.advance(Duration.ofSeconds(5));
+        expectComment(1, "Version 1");
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, cache.getRefreshes());
+    }
+
+    @Test
+    void staleEntryIsServedWhileRefreshingInBackground() {
+        expectComment(1, "Version 1");
+        clock.advance(Duration.ofSeconds(15));
+
+        //Pasado el softTtl se entrega lo viejo y el refresco trae la versión 2
+        expectComment(1, "Version 1");
+        assertEquals(1, cache.getRefreshes());
+        expectComment(1, "Version 2");
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        expectComment(1, "Version 1");
+        clock.advance(Duration.ofSeconds(61));
+
+        expectComment(1, "Version 2");
+        assertEquals(0, cache.getRefreshes());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void hungFirstLoadExpiresAfterHardTtl() {
+        var hangs = new AtomicInteger(1);
+        var hangingOnce = new CachingReviewService(new ReviewService() {
+            @Override
+            public Flux<Review> getReviews(long bookId) {
+                if (hangs.getAndDecrement() > 0)
+                    return Flux.never();
+                return versionedService.getReviews(bookId);
+            }
+        }, 10, Duration.ofSeconds(10), Duration.ofSeconds(60), clock, Schedulers.immediate());
+
+        var stuck = hangingOnce.getReviews(1).subscribe();
+        clock.advance(Duration.ofSeconds(30));
+        //Todavía dentro de hardTtl: se engancha al mismo llamado en vuelo
+        StepVerifier.create(hangingOnce.getReviews(1))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenCancel()
+                .verify();
+
+        clock.advance(Duration.ofSeconds(31));
+        StepVerifier.create(hangingOnce.getReviews(1).map(Review::getComments))
+                .expectNext("Version 1")
+                .verifyComplete();
+        assertEquals(2, hangingOnce.stats().getMisses());
+        stuck.dispose();
+    }
+
+    @Test
+    void entryCountIsBounded() {
+        var small = new CachingReviewService(versionedService,
+                2, Duration.ofSeconds(10), Duration.ofSeconds(60), clock, Schedulers.immediate());
+
+        small.getReviews(1).blockLast();
+        small.getReviews(2).blockLast();
+        small.getReviews(3).blockLast();
+
+        assertEquals(2, small.stats().getSize());
+        assertEquals(1, small.stats().getEvictions());
+    }
+
+    @Test
+    void softTtlGreaterThanHardTtlIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingReviewService(
+                versionedService, 10, Duration.ofSeconds(60), Duration.ofSeconds(10)));
+    }
+
+    private void expectComment(long bookId, String comment) {
+        StepVerifier.create(cache.getReviews(bookId))
+                .assertNext(review -> assertEquals(comment, review.getComments()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,31 @@
+package com.dailycodebuffer.reactiveprogramming.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+//Reloj que solo avanza cuando el test lo pide, para probar TTLs sin Thread.sleep
+class MutableClock extends Clock {
+    private Instant now = Instant.parse("2021-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+}
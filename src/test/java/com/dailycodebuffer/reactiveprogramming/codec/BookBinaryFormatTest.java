@@ -0,0 +1,155 @@
+package com.dailycodebuffer.reactiveprogramming.codec;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookBinaryFormatTest {
+
+    private final BookBinaryEncoder encoder = new BookBinaryEncoder();
+
+    private final BookBinaryDecoder decoder = new BookBinaryDecoder();
+
+    @Test
+    void bookRoundTrip() {
+        var book = new Book(new BookInfo(42, "Cien años de soledad", "García Márquez", null),
+                List.of(new Review(1, 42, 9.1, "Good Book"),
+                        new Review(7, 42, 8.625, "Worth Reading 📚"),
+                        new Review(8, 41, -1.5, null)));
+
+        assertEquals(book, roundTrip(book));
+    }
+
+    @Test
+    void bookInfoAndReviewRoundTrip() {
+        var bookInfo = new BookInfo(-3, "Book One", "Author One", "12121212");
+        var review = new Review(Long.MAX_VALUE, Long.MIN_VALUE, Math.PI, "Ñandú");
+
+        assertEquals(bookInfo, roundTrip(bookInfo));
+        assertEquals(review, roundTrip(review));
+    }
+
+    @Test
+    void streamOfBooksIsDecodedFrameByFrame() {
+        var books = Flux.range(1, 5)
+                .map(i -> new Book(new BookInfo(i, "Book " + i, "Author", "ISBN"), List.of()));
+        var buffers = encoder.encode(books, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forClass(Book.class), BookBinaryFormat.MIME_TYPE, null);
+
+        StepVerifier.create(decoder.decode(buffers, ResolvableType.forClass(Book.class),
+                        BookBinaryFormat.MIME_TYPE, null))
+                .expectNextCount(5)
+                .verifyComplete();
+    }
+
+    @Test
+    void streamLargerThanMaxInMemorySizeIsSplitAcrossBuffers() {
+        var books = new ArrayList<Book>();
+        for (int i = 1; i <= 5000; i++)
+            books.add(new Book(new BookInfo(i, "Book " + i, "Author " + i, "ISBN" + i),
+                    List.of(new Review(i, i, 9.1, "Good Book"), new Review(i + 1, i, 8.6, "Worth Reading"))));
+        var payload = bytes(Flux.fromIterable(books));
+        assertTrue(payload.length > decoder.getMaxInMemorySize(), "payload=" + payload.length);
+
+        //Trozos de 1000 bytes: casi todos los frames quedan partidos entre dos buffers
+        StepVerifier.create(decoder.decode(chunks(payload, 1000), ResolvableType.forClass(Book.class),
+                        BookBinaryFormat.MIME_TYPE, null).collectList())
+                .expectNext(new ArrayList<>(books))
+                .verifyComplete();
+    }
+
+    @Test
+    void framesAreEmittedBeforeTheStreamEnds() {
+        var first = new BookInfo(1, "Book One", "Author One", "12121212");
+        var payload = bytes(Flux.just(first, new BookInfo(2, "Book Two", "Author Two", "34343434")));
+        var firstSize = BookBinaryFormat.frameSize(first);
+        Sinks.Many<DataBuffer> input = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(decoder.decode(input.asFlux(), ResolvableType.forClass(BookInfo.class),
+                        BookBinaryFormat.MIME_TYPE, null).cast(BookInfo.class).map(BookInfo::getBookId))
+                .then(() -> input.tryEmitNext(wrap(Arrays.copyOfRange(payload, 0, firstSize + 3))))
+                .expectNext(1L)
+                .then(() -> {
+                    input.tryEmitNext(wrap(Arrays.copyOfRange(payload, firstSize + 3, payload.length)));
+                    input.tryEmitComplete();
+                })
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void frameLimitAndTruncationAreReported() {
+        var book = new Book(new BookInfo(1, "x".repeat(2000), null, null), List.of());
+        var payload = bytes(Flux.just(book));
+        var limited = new BookBinaryDecoder();
+        limited.setMaxInMemorySize(1000);
+
+        StepVerifier.create(limited.decode(chunks(payload, 100), ResolvableType.forClass(Book.class),
+                        BookBinaryFormat.MIME_TYPE, null))
+                .expectError(DataBufferLimitException.class)
+                .verify();
+        StepVerifier.create(decoder.decode(chunks(Arrays.copyOf(payload, payload.length - 1), 100),
+                        ResolvableType.forClass(Book.class), BookBinaryFormat.MIME_TYPE, null))
+                .expectError(DecodingException.class)
+                .verify();
+    }
+
+    @Test
+    void reviewHeavyBookIsAtLeastThreeTimesSmallerThanJson() throws Exception {
+        var reviews = new ArrayList<Review>();
+        for (int i = 1; i <= 1000; i++)
+            reviews.add(new Review(i, 1, i % 2 == 0 ? 9.1 : 8.6, i % 2 == 0 ? "Good Book" : "Worth Reading"));
+        var book = new Book(new BookInfo(1, "Book One", "Author One", "12121212"), reviews);
+
+        var json = new ObjectMapper().writeValueAsBytes(book);
+        var binary = encode(book);
+
+        assertTrue(json.length >= 3 * binary.readableByteCount(),
+                "json=" + json.length + " binary=" + binary.readableByteCount());
+    }
+
+    private Object roundTrip(Object value) {
+        return decoder.decode(encode(value), ResolvableType.forInstance(value),
+                BookBinaryFormat.MIME_TYPE, null);
+    }
+
+    private byte[] bytes(Flux<?> values) {
+        var joined = DataBufferUtils.join(encoder.encode(values, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forClass(Object.class), BookBinaryFormat.MIME_TYPE, null), -1).block();
+        var bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        return bytes;
+    }
+
+    private Flux<DataBuffer> chunks(byte[] payload, int chunkSize) {
+        return Flux.range(0, (payload.length + chunkSize - 1) / chunkSize)
+                .map(i -> wrap(Arrays.copyOfRange(payload, i * chunkSize,
+                        Math.min(payload.length, (i + 1) * chunkSize))));
+    }
+
+    private DataBuffer wrap(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+
+    private DataBuffer encode(Object value) {
+        return encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(value), BookBinaryFormat.MIME_TYPE, null);
+    }
+}
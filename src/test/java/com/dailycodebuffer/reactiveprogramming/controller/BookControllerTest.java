@@ -0,0 +1,128 @@
+package com.dailycodebuffer.reactiveprogramming.controller;
+
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryDecoder;
+import com.dailycodebuffer.reactiveprogramming.codec.BookBinaryEncoder;
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookControllerTest {
+
+    private final WebTestClient webTestClient = WebTestClient
+            .bindToController(new BookController(
+                    new BookService(new BookInfoService(), new ReviewService())))
+            .build();
+
+    @Test
+    void getBooksAsNdjson() {
+        var books = webTestClient.get().uri("/books")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Book.class)
+                .getResponseBody();
+
+        StepVerifier.create(books)
+                .assertNext(book -> assertEquals("Book One", book.getBookInfo().getTitle()))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksAsServerSentEvents() {
+        var books = webTestClient.get().uri("/books")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(Book.class)
+                .getResponseBody();
+
+        StepVerifier.create(books)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksRespectsClientDemand() {
+        //Un catálogo que no termina: si el controller lo juntara en memoria el test
+        //nunca terminaría
+        var endlessBookInfoService = new BookInfoService() {
+            @Override
+            public Flux<BookInfo> getBooks() {
+                return Flux.range(1, Integer.MAX_VALUE)
+                        .flatMap(i -> super.getBooks().take(1));
+            }
+        };
+        var client = WebTestClient
+                .bindToController(new BookController(
+                        new BookService(endlessBookInfoService, new ReviewService())))
+                .build();
+
+        var books = client.get().uri("/books")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Book.class)
+                .getResponseBody();
+
+        StepVerifier.create(books.take(5))
+                .expectNextCount(5)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBookById() {
+        webTestClient.get().uri("/books/{id}", 1)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Book.class)
+                .value(book -> {
+                    assertEquals(1, book.getBookInfo().getBookId());
+                    assertEquals(2, book.getReviews().size());
+                });
+    }
+
+    @Test
+    void getBooksAsBinary() {
+        var client = WebTestClient
+                .bindToController(new BookController(
+                        new BookService(new BookInfoService(), new ReviewService())))
+                .httpMessageCodecs(configurer ->
+                        configurer.customCodecs().register(new BookBinaryEncoder()))
+                .configureClient()
+                .codecs(configurer ->
+                        configurer.customCodecs().register(new BookBinaryDecoder()))
+                .build();
+
+        var books = client.get().uri("/books")
+                .accept(BookBinaryEncoder.MEDIA_TYPE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(BookBinaryEncoder.MEDIA_TYPE)
+                .returnResult(Book.class)
+                .getResponseBody();
+
+        StepVerifier.create(books)
+                .assertNext(book -> assertEquals(2, book.getReviews().size()))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        //Sin Accept específico /books/{id} sigue saliendo en JSON
+        client.get().uri("/books/{id}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSummaryTest {
+
+    @Test
+    void statisticsAreComputedIncrementally() {
+        var summary = new BookSummary(1);
+        for (double rating : new double[]{2, 4, 4, 4, 5, 5, 7, 9})
+            summary.add(rating);
+
+        assertEquals(8, summary.getCount());
+        assertEquals(5, summary.getMean(), 1e-9);
+        assertEquals(4, summary.getVariance(), 1e-9);
+        assertEquals(2, summary.getStandardDeviation(), 1e-9);
+        assertEquals(2, summary.getMin());
+        assertEquals(9, summary.getMax());
+        assertEquals(4, summary.percentile(0.5), 4 * 0.01);
+    }
+
+    @Test
+    void mergeMatchesSingleSummary() {
+        var all = new BookSummary(1);
+        var shardA = new BookSummary(1);
+        var shardB = new BookSummary(1);
+        for (int i = 0; i < 1000; i++) {
+            var rating = (i * 7919 % 100) / 10.0;
+            all.add(rating);
+            (i < 300 ? shardA : shardB).add(rating);
+        }
+
+        shardA.merge(shardB);
+
+        assertEquals(all.getCount(), shardA.getCount());
+        assertEquals(all.getMean(), shardA.getMean(), 1e-9);
+        assertEquals(all.getVariance(), shardA.getVariance(), 1e-9);
+        assertEquals(all.getMin(), shardA.getMin());
+        assertEquals(all.getMax(), shardA.getMax());
+        assertEquals(all.percentile(0.9), shardA.percentile(0.9));
+    }
+
+    @Test
+    void emptySummaryAndMismatchedBooks() {
+        var empty = new BookSummary(1);
+        assertTrue(Double.isNaN(empty.getMean()));
+        assertTrue(Double.isNaN(empty.percentile(0.5)));
+
+        assertEquals(1, empty.merge(new BookSummary(1).add(3)).getCount());
+        assertThrows(IllegalArgumentException.class, () -> empty.merge(new BookSummary(2)));
+    }
+}
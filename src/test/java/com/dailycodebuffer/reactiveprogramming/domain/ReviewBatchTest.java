@@ -0,0 +1,50 @@
+package com.dailycodebuffer.reactiveprogramming.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewBatchTest {
+
+    @Test
+    void columnsMatchReviews() {
+        var reviews = List.of(
+                new Review(1,7,9.1,"Good Book"),
+                new Review(2,7,8.6,null),
+                new Review(3,7,7.0,"Ñandú 📚"));
+
+        var batch = ReviewBatch.of(7, reviews);
+
+        assertEquals(3, batch.size());
+        assertEquals(2, batch.reviewId(1));
+        assertEquals(8.6, batch.rating(1));
+        assertNull(batch.comment(1));
+        assertEquals("Ñandú 📚", batch.comment(2));
+        assertEquals(reviews, batch.toReviews());
+    }
+
+    @Test
+    void builderGrowsPastInitialCapacity() {
+        var builder = ReviewBatch.builder(1);
+        for (int i = 0; i < 1000; i++)
+            builder.add(i, i % 10, "Review " + i);
+
+        var batch = builder.build();
+
+        assertEquals(1000, batch.size());
+        assertEquals(4.5, batch.averageRating(), 0.0001);
+        assertEquals(9, batch.ratings().max().orElseThrow());
+        assertEquals("Review 999", batch.comment(999));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.rating(1000));
+    }
+
+    @Test
+    void emptyBatch() {
+        var batch = ReviewBatch.builder(1).build();
+
+        assertTrue(batch.isEmpty());
+        assertTrue(Double.isNaN(batch.averageRating()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.dailycodebuffer.reactiveprogramming.feed;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.CatalogChange;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedHubTest {
+
+    private final ChangeFeedHub hub = new ChangeFeedHub(5, Schedulers.immediate());
+
+    private static BookInfo book(long bookId) {
+        return new BookInfo(bookId, "Book " + bookId, "Author", "ISBN");
+    }
+
+    @Test
+    void multicastsToAllSubscribers() {
+        var first = StepVerifier.create(hub.changes(10, OverflowPolicy.DROP_LATEST).map(CatalogChange::getSequence).take(3))
+                .expectNext(1L, 2L, 3L)
+                .expectComplete()
+                .verifyLater();
+        var second = StepVerifier.create(hub.changes(10, OverflowPolicy.DROP_LATEST).map(CatalogChange::getType).take(3))
+                .expectNext(CatalogChange.Type.BOOK_UPSERTED, CatalogChange.Type.REVIEW_UPSERTED,
+                        CatalogChange.Type.BOOK_REMOVED)
+                .expectComplete()
+                .verifyLater();
+
+        hub.bookUpserted(book(1));
+        hub.reviewUpserted(new Review(1, 1, 9.0, "Good"));
+        hub.bookRemoved(1);
+
+        first.verify(Duration.ofSeconds(1));
+        second.verify(Duration.ofSeconds(1));
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    //En los tests de overflow el cambio 1 es el que ya tomó el publishOn (en vuelo), el
+    //buffer de 3 empieza a contar desde el 2
+    @Test
+    void dropOldestKeepsNewestChanges() {
+        var slow = hub.changes(3, OverflowPolicy.DROP_OLDEST);
+
+        StepVerifier.create(slow.map(CatalogChange::getSequence), 0)
+                .then(() -> LongStream.rangeClosed(1, 10).forEach(i -> hub.bookUpserted(book(i))))
+                .thenRequest(4)
+                .expectNext(1L, 8L, 9L, 10L)
+                .thenCancel()
+                .verify();
+        assertEquals(6, hub.droppedCount());
+    }
+
+    @Test
+    void dropLatestKeepsOldestChanges() {
+        StepVerifier.create(hub.changes(3, OverflowPolicy.DROP_LATEST).map(CatalogChange::getSequence), 0)
+                .then(() -> LongStream.rangeClosed(1, 10).forEach(i -> hub.bookUpserted(book(i))))
+                .thenRequest(5)
+                .expectNext(1L, 2L, 3L, 4L)
+                .then(() -> hub.bookUpserted(book(11)))
+                .expectNext(11L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void disconnectFailsOnlyTheSlowSubscriber() {
+        var fast = StepVerifier.create(hub.changes(2, OverflowPolicy.DISCONNECT).take(10))
+                .expectNextCount(10)
+                .expectComplete()
+                .verifyLater();
+
+        StepVerifier.create(hub.changes(2, OverflowPolicy.DISCONNECT), 0)
+                .then(() -> LongStream.rangeClosed(1, 10).forEach(i -> hub.bookUpserted(book(i))))
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify(Duration.ofSeconds(1));
+
+        fast.verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void lateSubscriberReplaysBoundedHistory() {
+        LongStream.rangeClosed(1, 8).forEach(i -> hub.bookUpserted(book(i)));
+
+        StepVerifier.create(hub.changes(10, OverflowPolicy.DROP_LATEST, true).map(CatalogChange::getSequence))
+                .expectNext(4L, 5L, 6L, 7L, 8L)
+                .then(() -> hub.bookRemoved(3))
+                .expectNext(9L)
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(hub.changes(2, OverflowPolicy.DROP_LATEST, true).map(CatalogChange::getSequence))
+                .expectNext(8L, 9L)
+                .thenCancel()
+                .verify();
+    }
+}
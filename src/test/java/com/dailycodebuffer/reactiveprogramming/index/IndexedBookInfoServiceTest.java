@@ -0,0 +1,157 @@
+package com.dailycodebuffer.reactiveprogramming.index;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedBookInfoServiceTest {
+
+    private final AtomicInteger scans = new AtomicInteger();
+
+    private final BookInfoService catalog = new BookInfoService() {
+        @Override
+        public Flux<BookInfo> getBooks() {
+            scans.incrementAndGet();
+            return Flux.just(
+                    new BookInfo(1, "Reactive Spring", "Josh Long", "111"),
+                    new BookInfo(2, "Reactive Systems", "Jonas Bonér", "222"),
+                    new BookInfo(3, "Spring in Action", "Craig Walls", "333"),
+                    new BookInfo(4, "Spring Boot Up", "Josh Long", "444"));
+        }
+    };
+
+    private IndexedBookInfoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IndexedBookInfoService(catalog);
+        service.rebuild().block();
+        scans.set(0);
+    }
+
+    @Test
+    void getBookByIsbn() {
+        StepVerifier.create(service.getBookByIsbn("333"))
+                .expectNextMatches(book -> book.getBookId() == 3)
+                .verifyComplete();
+        StepVerifier.create(service.getBookByIsbn("999"))
+                .verifyComplete();
+
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    void getBooksByAuthorIgnoresCase() {
+        StepVerifier.create(service.getBooksByAuthor("josh long").map(BookInfo::getBookId).sort())
+                .expectNext(1L, 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksByTitlePrefixInTitleOrder() {
+        StepVerifier.create(service.getBooksByTitlePrefix("reactive s").map(BookInfo::getBookId))
+                .expectNext(1L, 2L)
+                .verifyComplete();
+        StepVerifier.create(service.getBooksByTitlePrefix("SPRING").map(BookInfo::getTitle))
+                .expectNext("Spring Boot Up", "Spring in Action")
+                .verifyComplete();
+    }
+
+    @Test
+    void updatesMoveBookBetweenEntries() {
+        service.put(new BookInfo(4, "Cloud Native Java", "Josh Long", "555"));
+
+        StepVerifier.create(service.getBookByIsbn("444")).verifyComplete();
+        StepVerifier.create(service.getBookByIsbn("555"))
+                .expectNextMatches(book -> book.getTitle().equals("Cloud Native Java"))
+                .verifyComplete();
+        StepVerifier.create(service.getBooksByTitlePrefix("spring b")).verifyComplete();
+
+        service.remove(1);
+        StepVerifier.create(service.getBooksByAuthor("Josh Long").map(BookInfo::getBookId))
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void rebuildSwapsIndexOnlyWhenLoadSucceeds() {
+        Sinks.Many<BookInfo> reload = Sinks.many().unicast().onBackpressureBuffer();
+        var reloading = new IndexedBookInfoService(new BookInfoService() {
+            @Override
+            public Flux<BookInfo> getBooks() {
+                return reload.asFlux();
+            }
+        }, service.index());
+
+        StepVerifier.create(reloading.rebuild())
+                .then(() -> reload.tryEmitNext(new BookInfo(5, "Cloud Native Java", "Josh Long", "555")))
+                .then(() -> {
+                    //A medio recargar se sigue respondiendo con el índice anterior
+                    assertNotNull(reloading.getBookByIsbn("111").block());
+                    assertNull(reloading.getBookByIsbn("555").block());
+                })
+                .then(() -> reloading.put(new BookInfo(6, "Spring Security", "Laur Spilca", "666")))
+                .then(reload::tryEmitComplete)
+                .verifyComplete();
+
+        assertNull(reloading.getBookByIsbn("111").block());
+        assertNotNull(reloading.getBookByIsbn("555").block());
+        assertNotNull(reloading.getBookByIsbn("666").block());
+
+        var failing = new IndexedBookInfoService(new BookInfoService() {
+            @Override
+            public Flux<BookInfo> getBooks() {
+                return Flux.concat(Flux.just(new BookInfo(7, "Half Loaded", "Nobody", "777")),
+                        Flux.error(new IllegalStateException("catalog down")));
+            }
+        }, service.index());
+        StepVerifier.create(failing.rebuild())
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertNotNull(failing.getBookByIsbn("111").block());
+        assertNull(failing.getBookByIsbn("777").block());
+    }
+
+    @Test
+    void readsDoNotWriteToIndex() {
+        var index = new BookIndex();
+        var readOnly = new IndexedBookInfoService(catalog, index);
+
+        StepVerifier.create(readOnly.getBooks()).expectNextCount(4).verifyComplete();
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void baseServiceScansCatalog() {
+        StepVerifier.create(catalog.getBooksByTitlePrefix("spring").count())
+                .expectNext(2L)
+                .verifyComplete();
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    void concurrentWritesAndReads() {
+        var index = new BookIndex();
+        List<Integer> ids = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+
+        ids.parallelStream().forEach(i -> {
+            index.put(new BookInfo(i, "Title " + i, "Author " + (i % 10), "ISBN" + i));
+            assertNotNull(index.byIsbn("ISBN" + i));
+        });
+
+        assertEquals(10_000, index.size());
+        assertEquals(1_000, index.byAuthor("author 3").size());
+        assertEquals(1_111, index.byTitlePrefix("title 1").size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.dailycodebuffer.reactiveprogramming.instrumentation;
+
+import com.dailycodebuffer.reactiveprogramming.services.BookAggregationOptions;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import com.dailycodebuffer.reactiveprogramming.services.ReviewService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineInstrumentationTest {
+
+    private final StageMetricsRegistry registry = new StageMetricsRegistry();
+
+    private final PipelineInstrumentation instrumentation = PipelineInstrumentation.metrics(registry);
+
+    @Test
+    void recordsElementsRequestsAndCompletion() {
+        var numbers = Flux.range(1, 10)
+                .transform(instrumentation.flux("numbers"));
+
+        StepVerifier.create(numbers, 4)
+                .expectNextCount(4)
+                .thenRequest(6)
+                .expectNextCount(6)
+                .verifyComplete();
+
+        var snapshot = registry.snapshot("numbers").orElseThrow();
+        assertEquals(1, snapshot.getSubscriptions());
+        assertEquals(10, snapshot.getRequested());
+        assertEquals(10, snapshot.getElements());
+        assertEquals(1, snapshot.getCompletions());
+        assertEquals(0, snapshot.getCancellations());
+    }
+
+    @Test
+    void recordsCancellationAndFirstElementLatency() {
+        var numbers = Flux.interval(Duration.ofMillis(20))
+                .transform(instrumentation.flux("interval"))
+                .take(3);
+
+        StepVerifier.create(numbers)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        var snapshot = registry.snapshot("interval").orElseThrow();
+        assertEquals(1, snapshot.getCancellations());
+        assertTrue(snapshot.getFirstElementP50Nanos() >= Duration.ofMillis(10).toNanos());
+    }
+
+    @Test
+    void bookServiceStagesAreRecorded() {
+        var options = BookAggregationOptions.builder()
+                .instrumentation(instrumentation)
+                .build();
+        var bookService = new BookService(new BookInfoService(), new ReviewService(), options);
+
+        bookService.getBooks().blockLast();
+        bookService.getBookById(1).block();
+
+        assertEquals(3, registry.snapshot("getBooks").orElseThrow().getElements());
+        assertEquals(1, registry.snapshot("getBookById").orElseThrow().getCompletions());
+    }
+
+    @Test
+    void histogramPercentilesAreBucketUpperBounds() {
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++)
+            histogram.record(1000);
+        histogram.record(1_000_000);
+
+        assertEquals(1023, histogram.percentileNanos(0.5));
+        assertEquals(1023, histogram.percentileNanos(0.99));
+        assertEquals(1_048_575, histogram.percentileNanos(1.0));
+    }
+}
@@ -0,0 +1,131 @@
+package com.dailycodebuffer.reactiveprogramming.repository;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import com.dailycodebuffer.reactiveprogramming.services.BookService;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class R2dbcServicesTest {
+
+    private ConnectionPool pool;
+    private R2dbcBookInfoService bookInfoService;
+    private R2dbcReviewService reviewService;
+
+    @BeforeEach
+    void setUp() {
+        pool = R2dbcConnections.pooled("r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", 4);
+        bookInfoService = new R2dbcBookInfoService(pool);
+        reviewService = new R2dbcReviewService(pool);
+
+        R2dbcConnections.createSchema(pool)
+                .thenMany(Flux.range(1, 20)
+                        .concatMap(i -> bookInfoService.save(new BookInfo(i, "Book " + i, "Author " + i, "ISBN" + i))))
+                .thenMany(Flux.range(1, 10)
+                        .concatMap(i -> reviewService.save(new Review(i * 2L - 1, i, 8.0, "Good"))
+                                .then(reviewService.save(new Review(i * 2L, i, 9.0, null)))))
+                .blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    void getBooksStreamsRows() {
+        StepVerifier.create(bookInfoService.getBooks(), 1)
+                .expectNext(new BookInfo(1, "Book 1", "Author 1", "ISBN1"))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(19)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBookById() {
+        StepVerifier.create(bookInfoService.getBookById(7))
+                .expectNext(new BookInfo(7, "Book 7", "Author 7", "ISBN7"))
+                .verifyComplete();
+        StepVerifier.create(bookInfoService.getBookById(99))
+                .verifyComplete();
+        StepVerifier.create(bookInfoService.getBooksByIds(List.of(3L, 5L, 99L)))
+                .assertNext(books -> {
+                    assertEquals(2, books.size());
+                    assertEquals("Book 5", books.get(5L).getTitle());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksFromPagesByKey() {
+        StepVerifier.create(bookInfoService.getBooksFrom(BookInfoService.START, 6)
+                        .map(BookInfo::getBookId)
+                        .collectList())
+                .expectNext(LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviews() {
+        StepVerifier.create(reviewService.getReviews(3))
+                .expectNext(new Review(5, 3, 8.0, "Good"), new Review(6, 3, 9.0, null))
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewBatchReadsColumnsFromRows() {
+        StepVerifier.create(reviewService.getReviewBatch(3))
+                .assertNext(batch -> {
+                    assertEquals(3, batch.getBookId());
+                    assertEquals(2, batch.size());
+                    assertEquals(5, batch.reviewId(0));
+                    assertEquals("Good", batch.comment(0));
+                    assertNull(batch.comment(1));
+                    assertEquals(8.5, batch.averageRating());
+                })
+                .verifyComplete();
+        StepVerifier.create(reviewService.getReviewBatch(99))
+                .assertNext(batch -> assertTrue(batch.isEmpty()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewsForBooksUsesInQueries() {
+        var bookIds = LongStream.rangeClosed(1, R2dbcReviewService.MAX_IN_SIZE + 1L)
+                .boxed()
+                .collect(Collectors.toList());
+
+        StepVerifier.create(reviewService.getReviewsForBooks(bookIds))
+                .assertNext(reviewsByBook -> {
+                    assertEquals(10, reviewsByBook.size());
+                    assertEquals(2, reviewsByBook.get(10L).size());
+                    assertNull(reviewsByBook.get(11L));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void bookServiceRunsOnR2dbc() {
+        var bookService = new BookService(bookInfoService, reviewService);
+
+        StepVerifier.create(bookService.getBooksBatched().filter(book -> !book.getReviews().isEmpty()))
+                .expectNextCount(10)
+                .verifyComplete();
+        StepVerifier.create(bookService.getBookById(1))
+                .assertNext(book -> assertEquals(List.of(8.0, 9.0), book.getReviews().stream()
+                        .map(Review::getRatings).collect(Collectors.toList())))
+                .verifyComplete();
+    }
+}
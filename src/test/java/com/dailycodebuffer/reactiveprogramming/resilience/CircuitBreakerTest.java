@@ -0,0 +1,89 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import com.dailycodebuffer.reactiveprogramming.exception.CircuitBreakerOpenException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final CircuitBreaker breaker
+            = new CircuitBreaker("test", 2, Duration.ofSeconds(5), nanos::get);
+
+    private final Mono<String> failingCall = Mono.defer(() -> {
+        calls.incrementAndGet();
+        return Mono.error(new IllegalStateException("exception using test"));
+    });
+
+    private final Mono<String> healthyCall = Mono.fromSupplier(() -> {
+        calls.incrementAndGet();
+        return "ok";
+    });
+
+    @Test
+    void opensAfterConsecutiveFailuresAndFailsFast() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        StepVerifier.create(breaker.protect(healthyCall))
+                .expectError(CircuitBreakerOpenException.class)
+                .verify();
+
+        //El tercer llamado no llegó al servicio
+        assertEquals(2, calls.get());
+        assertEquals(1, breaker.metrics().getRejectedCalls());
+        assertEquals(1, breaker.metrics().getOpenedCount());
+    }
+
+    @Test
+    void closesAfterSuccessfulTrialCall() {
+        fail(2);
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        StepVerifier.create(breaker.protect(healthyCall))
+                .expectNext("ok")
+                .verifyComplete();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.metrics().getClosedCount());
+    }
+
+    @Test
+    void reopensWhenTrialCallFails() {
+        fail(2);
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.metrics().getOpenedCount());
+        assertEquals(1, breaker.metrics().getHalfOpenedCount());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        fail(1);
+        breaker.protect(healthyCall).block();
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            StepVerifier.create(breaker.protect(failingCall))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+        }
+    }
+}
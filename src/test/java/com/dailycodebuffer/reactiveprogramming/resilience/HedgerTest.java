@@ -0,0 +1,138 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    //El primer llamado se demora un segundo, los siguientes responden de una vez
+    private final Supplier<Mono<String>> slowThenFast = () -> {
+        if (calls.incrementAndGet() == 1)
+            return Mono.just("primary").delayElement(Duration.ofSeconds(1));
+        return Mono.just("hedge");
+    };
+
+    @Test
+    void slowCallIsHedgedAndFirstAnswerWins() {
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 1.0);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(slowThenFast))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, hedger.getHedgesSent());
+        assertEquals(1, hedger.getHedgeWins());
+    }
+
+    @Test
+    void fastCallIsNotHedged() {
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 1.0);
+
+        StepVerifier.create(hedger.hedge(() -> Mono.just("primary")))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(0, hedger.getHedgesSent());
+    }
+
+    @Test
+    void hedgesAreCappedByRatio() {
+        //Con 0.5 se gana medio crédito por llamado: el primero no alcanza a hedgear
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 0.5);
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(slowThenFast))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+        assertEquals(1, hedger.getHedgesDenied());
+    }
+
+    @Test
+    void failingHedgeDoesNotCancelHealthyPrimary() {
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 1.0);
+        Supplier<Mono<String>> slowThenFailing = () -> {
+            if (calls.incrementAndGet() == 1)
+                return Mono.just("primary").delayElement(Duration.ofSeconds(1));
+            return Mono.error(new IllegalStateException("hedge failed"));
+        };
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(slowThenFailing))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, hedger.getHedgeErrors());
+        assertEquals(0, hedger.getHedgeWins());
+    }
+
+    @Test
+    void hedgeErrorIsSuppressedWhenPrimaryAlsoFails() {
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 1.0);
+        Supplier<Mono<String>> bothFailing = () -> {
+            if (calls.incrementAndGet() == 1)
+                return Mono.delay(Duration.ofSeconds(1))
+                        .then(Mono.error(new IllegalStateException("primary failed")));
+            return Mono.error(new IllegalStateException("hedge failed"));
+        };
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(bothFailing))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectErrorSatisfies(error -> {
+                    assertEquals("primary failed", error.getMessage());
+                    assertEquals("hedge failed", error.getSuppressed()[0].getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    void halfOpenTrialSurvivesRejectedHedge() {
+        var nanos = new AtomicLong();
+        var breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(5), nanos::get);
+        StepVerifier.create(breaker.protect(Mono.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        nanos.set(Duration.ofSeconds(5).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        //El duplicado llega mientras el llamado de prueba sigue en vuelo y el breaker lo
+        //rechaza
+        var hedger = Hedger.fixedDelay(Duration.ofMillis(100), 1.0);
+        Supplier<Mono<String>> protectedCall = () -> breaker.protect(
+                Mono.just("trial").delayElement(Duration.ofSeconds(1)));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(protectedCall))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("trial")
+                .verifyComplete();
+
+        assertEquals(1, hedger.getHedgeErrors());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.metrics().getRejectedCalls());
+    }
+
+    @Test
+    void percentileDelayFollowsRecordedLatencies() {
+        var estimator = new LatencyEstimator(100, 0.95);
+        assertEquals(-1, estimator.estimateNanos());
+
+        for (int i = 1; i <= 100; i++)
+            estimator.record(Duration.ofMillis(i).toNanos());
+
+        assertEquals(Duration.ofMillis(95).toNanos(), estimator.estimateNanos());
+    }
+}
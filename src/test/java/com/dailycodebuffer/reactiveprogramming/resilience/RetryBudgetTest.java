@@ -0,0 +1,95 @@
+package com.dailycodebuffer.reactiveprogramming.resilience;
+
+import com.dailycodebuffer.reactiveprogramming.exception.BookException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void deniesRetriesWhenBucketIsEmpty() {
+        var budget = new RetryBudget(2, 1, nanos::get);
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(2, budget.getGranted());
+        assertEquals(1, budget.getDenied());
+    }
+
+    @Test
+    void refillsOverTimeUpToCapacity() {
+        var budget = new RetryBudget(2, 1, nanos::get);
+        budget.tryAcquire();
+        budget.tryAcquire();
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        nanos.addAndGet(Duration.ofSeconds(60).toNanos());
+        assertEquals(2, budget.getAvailableTokens(), 0.0001);
+    }
+
+    @Test
+    void exhaustedChainSpendsExactlyMaxRetriesTokens() {
+        var budget = new RetryBudget(20, 0, nanos::get);
+        var resilience = BookResilience.builder()
+                .retryBudget(budget)
+                .maxRetries(3)
+                .minBackoff(Duration.ofMillis(10))
+                .build();
+        var attempts = new AtomicInteger();
+        var failing = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new BookException("down"));
+        });
+
+        StepVerifier.create(failing.retryWhen(resilience.immediateRetry()))
+                .expectError(BookException.class)
+                .verify();
+        assertEquals(4, attempts.get());
+        assertEquals(3, budget.getGranted());
+
+        StepVerifier.withVirtualTime(() -> failing.retryWhen(resilience.backoffRetry()))
+                .thenAwait(Duration.ofSeconds(10))
+                .expectError(BookException.class)
+                .verify();
+        assertEquals(8, attempts.get());
+        assertEquals(6, budget.getGranted());
+        assertEquals(0, budget.getDenied());
+    }
+
+    @Test
+    void emptyBudgetFailsWithOriginalError() {
+        var budget = new RetryBudget(1, 0, nanos::get);
+        var resilience = BookResilience.builder().retryBudget(budget).maxRetries(3).build();
+        var attempts = new AtomicInteger();
+        var failing = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new BookException("down"));
+        });
+
+        StepVerifier.create(failing.retryWhen(resilience.immediateRetry()))
+                .expectErrorMessage("down")
+                .verify();
+        assertEquals(2, attempts.get());
+        assertEquals(1, budget.getGranted());
+        assertEquals(1, budget.getDenied());
+
+        //Un error que no se reintenta no pide token
+        StepVerifier.create(Mono.error(new IllegalStateException("bug")).retryWhen(resilience.immediateRetry()))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(1, budget.getDenied());
+    }
+}
@@ -0,0 +1,213 @@
+package com.dailycodebuffer.reactiveprogramming.search;
+
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewSearchIndexTest {
+
+    private final ReviewSearchIndex index = new ReviewSearchIndex();
+
+    @Test
+    void tokenizeNormalizesCaseAndAccents() {
+        assertEquals(List.of("buenisimo", "libro", "de", "java", "11"),
+                Tokenizer.tokenize("¡Buenísimo libro de Java 11, a!"));
+    }
+
+    @Test
+    void searchRanksByRelevance() {
+        index.addAll(Flux.just(
+                new Review(1, 10, 9.0, "Good book about reactive streams"),
+                new Review(2, 20, 8.0, "Reactive reactive reactive, all about reactive programming"),
+                new Review(3, 30, 7.0, "Boring"),
+                new Review(4, 40, 6.0, "Streams and more streams"))).block();
+
+        StepVerifier.create(index.search("Reactive").map(Review::getReviewId))
+                .expectNext(2L, 1L)
+                .verifyComplete();
+        StepVerifier.create(index.search("reactive streams").map(Review::getReviewId))
+                .expectNext(1L)
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(index.search("nothing")).verifyComplete();
+        StepVerifier.create(index.search("!!")).verifyComplete();
+    }
+
+    @Test
+    void updatesAndRemovesAreVisible() {
+        index.add(new Review(1, 10, 9.0, "Great story"));
+        index.add(new Review(2, 20, 8.0, "Great characters"));
+
+        index.add(new Review(1, 10, 9.0, "Dull story"));
+        StepVerifier.create(index.search("great").map(Review::getReviewId))
+                .expectNext(2L)
+                .verifyComplete();
+
+        index.remove(2);
+        StepVerifier.create(index.search("great")).verifyComplete();
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void repeatedUpdatesDoNotSkewRelevance() {
+        index.add(new Review(1, 10, 9.0, "Apple"));
+        index.add(new Review(2, 20, 8.0, "Apple banana"));
+        index.add(new Review(3, 30, 7.0, "Banana"));
+        for (int i = 0; i < 3000; i++)
+            index.add(new Review(1, 10, 9.0, "Apple"));
+
+        assertEquals(2, index.documentFrequency("apple"));
+        assertEquals(2, index.documentFrequency("banana"));
+        //Las actualizaciones también compactan, si no los huecos crecen sin límite
+        assertTrue(index.postingBytes() < 1024 * 2);
+        StepVerifier.create(index.search("apple banana").map(Review::getReviewId))
+                .expectNext(2L)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void respectsBackpressureAndCancellation() {
+        for (int i = 0; i < 10_000; i++)
+            index.add(new Review(i, i % 100, 5.0, "book " + "word ".repeat(1 + i % 7)));
+
+        StepVerifier.create(index.search("word"), 0)
+                .thenRequest(3)
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(index.search("word").take(20))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        StepVerifier.create(index.searchBookIds("book").count())
+                .expectNext(100L)
+                .verifyComplete();
+    }
+
+    @Test
+    void limitedDemandReadsFewerPostingsThanFullScan() {
+        //Unos pocos reviews cortos que repiten el término entre miles que lo mencionan una vez
+        for (int i = 0; i < 10_000; i++) {
+            var comments = i % 500 == 0 ? "word ".repeat(8) : "word" + " filler".repeat(20);
+            index.add(new Review(i, i, 5.0, comments));
+        }
+
+        StepVerifier.create(index.search("word").take(20).map(Review::getReviewId).collectList())
+                .assertNext(ids -> assertTrue(ids.stream().allMatch(id -> id % 500 == 0), ids.toString()))
+                .verifyComplete();
+        var limited = index.postingsRead();
+
+        StepVerifier.create(index.search("word").count())
+                .expectNext(10_000L)
+                .verifyComplete();
+        var full = index.postingsRead() - limited;
+
+        assertEquals(10_000, full);
+        assertTrue(limited * 3 < full, "limited=" + limited + " full=" + full);
+    }
+
+    @Test
+    void earlyTerminationKeepsExactBm25Order() {
+        var vocabulary = List.of("alpha", "beta", "gamma", "delta", "epsilon", "zeta");
+        var random = new Random(42);
+        var reviews = new ArrayList<Review>();
+        for (int i = 0; i < 3000; i++) {
+            var words = new ArrayList<String>();
+            //Los primeros términos del vocabulario son mucho más comunes que los últimos
+            for (int w = 0, n = 1 + random.nextInt(30); w < n; w++) {
+                var rank = (int) Math.min(vocabulary.size() - 1, Math.abs(random.nextGaussian()) * 2);
+                words.add(vocabulary.get(rank));
+            }
+            reviews.add(new Review(i, i, 5.0, String.join(" ", words)));
+        }
+        reviews.forEach(index::add);
+        //Algunos borrados y reemplazos para que haya huecos en las listas
+        for (int i = 0; i < 3000; i += 7)
+            index.remove(i);
+        for (int i = 1; i < 3000; i += 11) {
+            if (i % 7 == 0)
+                continue;
+            var review = new Review(i, i, 5.0, "gamma delta delta zeta");
+            reviews.set(i, review);
+            index.add(review);
+        }
+        var live = reviews.stream()
+                .filter(review -> review.getReviewId() % 7 != 0)
+                .collect(Collectors.toList());
+
+        var queries = List.of("alpha", "zeta", "gamma delta", "beta epsilon zeta", "alpha zeta missing");
+        for (String query : queries) {
+            var expected = bruteForce(live, query);
+            StepVerifier.create(index.search(query).map(Review::getReviewId).collectList())
+                    .expectNext(expected)
+                    .verifyComplete();
+            StepVerifier.create(index.search(query).take(10).map(Review::getReviewId).collectList())
+                    .expectNext(expected.subList(0, Math.min(10, expected.size())))
+                    .verifyComplete();
+        }
+    }
+
+    //BM25 recorriendo todos los reviews, con los mismos parámetros que el índice
+    private static List<Long> bruteForce(List<Review> reviews, String query) {
+        var tokens = reviews.stream().collect(Collectors.toMap(Review::getReviewId,
+                review -> Tokenizer.tokenize(review.getComments())));
+        var averageLength = Math.max(1.0, tokens.values().stream().mapToInt(List::size).sum()
+                / (double) reviews.size());
+        var scores = new HashMap<Long, Double>();
+        for (String term : new LinkedHashSet<>(Tokenizer.tokenize(query))) {
+            var documentFrequency = tokens.values().stream().filter(t -> t.contains(term)).count();
+            if (documentFrequency == 0)
+                continue;
+            var idf = Math.log(1 + (reviews.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            tokens.forEach((reviewId, t) -> {
+                var frequency = t.stream().filter(term::equals).count();
+                if (frequency == 0)
+                    return;
+                var norm = 1.2 * (1 - 0.75 + 0.75 * t.size() / averageLength);
+                scores.merge(reviewId, idf * frequency * 2.2 / (frequency + norm), Double::sum);
+            });
+        }
+        return scores.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Long, Double> e) -> -e.getValue())
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void postingListsAreCompact() {
+        for (int i = 0; i < 1000; i++)
+            index.add(new Review(i, i, 5.0, "Worth reading"));
+
+        //Dos términos, 1000 entradas de 2 bytes cada uno
+        assertEquals(4000, index.postingBytes());
+    }
+
+    @Test
+    void compactsAfterManyDeletes() {
+        for (int i = 0; i < 3000; i++)
+            index.add(new Review(i, i, 5.0, "Worth reading"));
+        for (int i = 0; i < 2000; i++)
+            index.remove(i);
+
+        assertEquals(1000, index.size());
+        assertTrue(index.postingBytes() < 6000);
+        StepVerifier.create(index.search("worth").count())
+                .expectNext(1000L)
+                .verifyComplete();
+    }
+}
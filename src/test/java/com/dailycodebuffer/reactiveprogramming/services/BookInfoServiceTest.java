@@ -0,0 +1,78 @@
+package com.dailycodebuffer.reactiveprogramming.services;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.BookPage;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookInfoServiceTest {
+
+    private final AtomicInteger pageRequests = new AtomicInteger();
+
+    //Catálogo de 1000 libros que cuenta cuántas páginas se piden
+    private final BookInfoService largeCatalog = new BookInfoService() {
+        @Override
+        public Flux<BookInfo> getBooks() {
+            return Flux.range(1, 1000)
+                    .map(i -> new BookInfo(i, "Book " + i, "Author", "ISBN"));
+        }
+
+        @Override
+        public Mono<BookPage> getBooksPage(long afterBookId, int pageSize) {
+            pageRequests.incrementAndGet();
+            return super.getBooksPage(afterBookId, pageSize);
+        }
+    };
+
+    private final BookInfoService bookInfoService = new BookInfoService();
+
+    @Test
+    void getBooksPage() {
+        StepVerifier.create(bookInfoService.getBooksPage(BookInfoService.START, 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getBooks().size());
+                    assertEquals(2, page.getNextCursor());
+                    assertTrue(page.isHasMore());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(bookInfoService.getBooksPage(2, 2))
+                .assertNext(page -> {
+                    assertEquals("Book Three", page.getBooks().get(0).getTitle());
+                    assertFalse(page.isHasMore());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksFromStreamsWholeCatalogInPages() {
+        StepVerifier.create(largeCatalog.getBooksFrom(BookInfoService.START, 100))
+                .expectNextCount(1000)
+                .verifyComplete();
+
+        assertEquals(10, pageRequests.get());
+    }
+
+    @Test
+    void getBooksFromResumesAfterCursor() {
+        StepVerifier.create(largeCatalog.getBooksFrom(995, 2))
+                .expectNextMatches(bookInfo -> bookInfo.getBookId() == 996)
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksFromOnlyPrefetchesOnePageAhead() {
+        StepVerifier.create(largeCatalog.getBooksFrom(BookInfoService.START, 10).take(5))
+                .expectNextCount(5)
+                .verifyComplete();
+
+        assertTrue(pageRequests.get() <= 2, "pages requested: " + pageRequests.get());
+    }
+}
@@ -1,6 +1,11 @@
 package com.dailycodebuffer.reactiveprogramming.services;
 
+import com.dailycodebuffer.reactiveprogramming.domain.DegradationSummary;
+import com.dailycodebuffer.reactiveprogramming.domain.DegradedBook;
 import com.dailycodebuffer.reactiveprogramming.exception.BookException;
+import com.dailycodebuffer.reactiveprogramming.exception.CircuitBreakerOpenException;
+import com.dailycodebuffer.reactiveprogramming.resilience.BookResilience;
+import com.dailycodebuffer.reactiveprogramming.resilience.CircuitBreaker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -9,6 +14,9 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +47,28 @@ class BookServiceMockTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getBooksBatchedMock() {
+
+        Mockito.when(bookInfoService.getBooks())
+                .thenCallRealMethod();
+
+        Mockito.when(reviewService.getReviewsForBooks(Mockito.anyCollection()))
+                .thenCallRealMethod();
+
+        var books = bookService.getBooksBatched(2, Duration.ofMillis(100));
+
+        StepVerifier.create(books)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        //3 libros en lotes de 2: solo dos llamados al servicio de reviews
+        Mockito.verify(reviewService, Mockito.times(2))
+                .getReviewsForBooks(Mockito.anyCollection());
+        Mockito.verify(reviewService, Mockito.never())
+                .getReviews(Mockito.anyLong());
+    }
+
     @Test
     void getBooksMockOnError() {
 
@@ -87,4 +117,57 @@ class BookServiceMockTest {
                 .expectError(BookException.class)
                 .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBooksFailsFastWhenReviewBreakerIsOpen() {
+
+        Mockito.when(bookInfoService.getBooks())
+                .thenCallRealMethod();
+
+        Mockito.when(reviewService.getReviews(Mockito.anyLong()))
+                .thenThrow(new IllegalStateException("exception using test"));
+
+        var resilience = BookResilience.builder()
+                .reviewBreaker(new CircuitBreaker("reviewService", 1, Duration.ofMinutes(1)))
+                .build();
+        var resilientBookService = new BookService(bookInfoService, reviewService,
+                BookAggregationOptions.defaults(), resilience);
+
+        StepVerifier.create(resilientBookService.getBooks())
+                .expectError(BookException.class)
+                .verify();
+
+        //Con el breaker abierto el reintento no se hace y no se vuelve a llamar al servicio
+        StepVerifier.create(resilientBookService.getBooksRetryWhen())
+                .expectError(CircuitBreakerOpenException.class)
+                .verify();
+
+        Mockito.verify(reviewService, Mockito.times(1))
+                .getReviews(Mockito.anyLong());
+        assertEquals(1, resilience.getReviewBreaker().metrics().getRejectedCalls());
+    }
+
+    @Test
+    void getBooksPartialMockOnError() {
+
+        Mockito.when(bookInfoService.getBooks())
+                .thenCallRealMethod();
+
+        Mockito.when(reviewService.getReviews(Mockito.anyLong()))
+                .thenThrow(new IllegalStateException("exception using test"));
+
+        var summary = new AtomicReference<DegradationSummary>();
+        var books = bookService.getBooksPartial(Duration.ofSeconds(1), summary::set);
+
+        //En vez del BookException salen los 3 libros sin reviews
+        StepVerifier.create(books)
+                .expectNextMatches(book -> book.getReviews().isEmpty())
+                .expectNextMatches(book -> book.getReviews().isEmpty())
+                .expectNextMatches(book -> book.getReviews().isEmpty())
+                .verifyComplete();
+
+        assertEquals(3, summary.get().getTotalBooks());
+        assertEquals(3, summary.get().getDegradedBooks().size());
+        assertEquals(DegradedBook.Reason.ERROR, summary.get().getDegradedBooks().get(0).getReason());
+    }
+}
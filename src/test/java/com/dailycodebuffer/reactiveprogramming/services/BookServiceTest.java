@@ -1,8 +1,23 @@
 package com.dailycodebuffer.reactiveprogramming.services;
 
+import com.dailycodebuffer.reactiveprogramming.domain.Book;
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.domain.DegradationSummary;
+import com.dailycodebuffer.reactiveprogramming.domain.DegradedBook;
+import com.dailycodebuffer.reactiveprogramming.domain.Review;
+import com.dailycodebuffer.reactiveprogramming.exception.BookException;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class BookServiceTest {
@@ -36,6 +51,77 @@ class BookServiceTest {
 
     }
 
+    @Test
+    void getBooksBatched() {
+        var books = bookService.getBooksBatched(2, Duration.ofMillis(100));
+        StepVerifier.create(books)
+                .assertNext(book -> {
+                    assertEquals("Book One",book.getBookInfo().getTitle());
+                    assertEquals(2,book.getReviews().size());
+                })
+                .assertNext(book -> assertEquals("Book Two",book.getBookInfo().getTitle()))
+                .assertNext(book -> assertEquals("Book Three",book.getBookInfo().getTitle()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksOrderedWithLimitedConcurrency() {
+        //El primer libro es el que más se demora en traer sus reviews, sin ordered
+        //saldría de último
+        var slowReviewService = new ReviewService() {
+            @Override
+            public Flux<Review> getReviews(long bookId) {
+                return super.getReviews(bookId)
+                        .delaySubscription(Duration.ofMillis(300 / bookId));
+            }
+        };
+        var options = BookAggregationOptions.builder()
+                .maxConcurrency(2)
+                .prefetch(1)
+                .ordered(true)
+                .scheduler(Schedulers.parallel())
+                .build();
+        var orderedBookService
+                = new BookService(bookInfoService,slowReviewService,options);
+
+        StepVerifier.create(orderedBookService.getBooks())
+                .assertNext(book -> assertEquals("Book One",book.getBookInfo().getTitle()))
+                .assertNext(book -> assertEquals("Book Two",book.getBookInfo().getTitle()))
+                .assertNext(book -> assertEquals("Book Three",book.getBookInfo().getTitle()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksPartialWithSlowReviews() {
+        //Las reviews del libro 2 nunca llegan a tiempo
+        var slowReviewService = new ReviewService() {
+            @Override
+            public Flux<Review> getReviews(long bookId) {
+                if (bookId == 2)
+                    return super.getReviews(bookId).delaySubscription(Duration.ofSeconds(5));
+                return super.getReviews(bookId);
+            }
+        };
+        var options = BookAggregationOptions.builder().ordered(true).build();
+        var partialBookService
+                = new BookService(bookInfoService,slowReviewService,options);
+
+        var summary = new AtomicReference<DegradationSummary>();
+        StepVerifier.create(partialBookService.getBooksPartial(Duration.ofMillis(200), summary::set))
+                .assertNext(book -> assertEquals(2,book.getReviews().size()))
+                .assertNext(book -> {
+                    assertEquals("Book Two",book.getBookInfo().getTitle());
+                    assertTrue(book.getReviews().isEmpty());
+                })
+                .assertNext(book -> assertEquals(2,book.getReviews().size()))
+                .verifyComplete();
+
+        assertEquals(3, summary.get().getTotalBooks());
+        assertEquals(1, summary.get().getDegradedBooks().size());
+        assertEquals(2, summary.get().getDegradedBooks().get(0).getBookId());
+        assertEquals(DegradedBook.Reason.TIMEOUT, summary.get().getDegradedBooks().get(0).getReason());
+    }
+
     @Test
     void getBookById() {
         var book = bookService.getBookById(1).log();
@@ -46,4 +132,91 @@ class BookServiceTest {
                 })
                 .verifyComplete();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBooksColumnar() {
+        var books = bookService.getBooksColumnar();
+        StepVerifier.create(books)
+                .assertNext(book -> {
+                    assertEquals("Book One",book.getBookInfo().getTitle());
+                    assertEquals(2,book.getReviews().size());
+                    assertEquals(8.85,book.getReviews().averageRating(),0.0001);
+                })
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBookByIdColumnar() {
+        StepVerifier.create(bookService.getBookByIdColumnar(1))
+                .assertNext(b -> {
+                    assertEquals("Book One",b.getBookInfo().getTitle());
+                    assertEquals("Worth Reading",b.getReviews().comment(1));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getBookSummary() {
+        StepVerifier.create(bookService.getBookSummary(1))
+                .assertNext(summary -> {
+                    assertEquals(2,summary.getCount());
+                    assertEquals(8.85,summary.getMean(),0.0001);
+                    assertEquals(8.6,summary.getMin());
+                    assertEquals(9.1,summary.getMax());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(bookService.getBookSummaries())
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksFrom() {
+        StepVerifier.create(bookService.getBooksFrom(1, 1))
+                .assertNext(book -> assertEquals("Book Two",book.getBookInfo().getTitle()))
+                .assertNext(book -> assertEquals("Book Three",book.getBookInfo().getTitle()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getBooksEnrichedInBookIdOrder() {
+        var catalog = new BookInfoService() {
+            @Override
+            public Flux<BookInfo> getBooks() {
+                return Flux.range(1, 1000)
+                        .map(i -> new BookInfo(1001 - i, "Book " + i, "Author", "ISBN"));
+            }
+        };
+        var threads = ConcurrentHashMap.<String>newKeySet();
+        var enrichmentOptions = EnrichmentOptions.builder()
+                .parallelism(4)
+                .scheduler(Schedulers.newParallel("enrichment", 4))
+                .ordered(true)
+                .build();
+
+        StepVerifier.create(new BookService(catalog, reviewService)
+                        .getBooksEnriched(book -> {
+                            threads.add(Thread.currentThread().getName());
+                            return new Book(book.getBookInfo(), List.of());
+                        }, enrichmentOptions)
+                        .map(book -> book.getBookInfo().getBookId())
+                        .collectList())
+                .assertNext(ids -> assertEquals(LongStream.rangeClosed(1, 1000).boxed()
+                        .collect(Collectors.toList()), ids))
+                .verifyComplete();
+
+        assertTrue(threads.size() > 1);
+        enrichmentOptions.getScheduler().dispose();
+    }
+
+    @Test
+    void getBooksEnrichedMapsErrors() {
+        StepVerifier.create(bookService.getBooksEnriched(book -> {
+                    throw new IllegalStateException("enrichment failed");
+                }))
+                .expectError(BookException.class)
+                .verify();
+    }
+}
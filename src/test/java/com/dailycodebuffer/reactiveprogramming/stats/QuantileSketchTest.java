@@ -0,0 +1,65 @@
+package com.dailycodebuffer.reactiveprogramming.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        var sketch = new QuantileSketch(0.01, 2048);
+        for (int i = 1; i <= 10_000; i++)
+            sketch.add(i);
+
+        assertEquals(10_000, sketch.getCount());
+        assertEquals(5000, sketch.quantile(0.5), 5000 * 0.01);
+        assertEquals(9900, sketch.quantile(0.99), 9900 * 0.01);
+        assertEquals(1, sketch.quantile(0), 0.01);
+        assertEquals(10_000, sketch.quantile(1), 10_000 * 0.01);
+    }
+
+    @Test
+    void negativeAndZeroValues() {
+        var sketch = new QuantileSketch(0.01, 512);
+        sketch.add(-5);
+        sketch.add(0);
+        sketch.add(5);
+
+        assertEquals(-5, sketch.quantile(0), 0.05);
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(5, sketch.quantile(1), 0.05);
+    }
+
+    @Test
+    void mergedShardsMatchSingleSketch() {
+        var random = new Random(42);
+        var all = new QuantileSketch(0.01, 512);
+        var shardA = new QuantileSketch(0.01, 512);
+        var shardB = new QuantileSketch(0.01, 512);
+        for (int i = 0; i < 10_000; i++) {
+            var rating = 1 + random.nextDouble() * 9;
+            all.add(rating);
+            (i % 2 == 0 ? shardA : shardB).add(rating);
+        }
+
+        shardA.merge(shardB);
+
+        assertEquals(all.getCount(), shardA.getCount());
+        assertEquals(all.quantile(0.5), shardA.quantile(0.5));
+        assertEquals(all.quantile(0.95), shardA.quantile(0.95));
+    }
+
+    @Test
+    void bucketCountIsBounded() {
+        //Con pocos buckets los valores más pequeños se juntan, los altos siguen precisos
+        var sketch = new QuantileSketch(0.01, 64);
+        for (int i = 1; i <= 1_000_000; i *= 10)
+            sketch.add(i);
+
+        assertEquals(1_000_000, sketch.quantile(1), 1_000_000 * 0.01);
+        assertEquals(7, sketch.getCount());
+    }
+}
@@ -0,0 +1,167 @@
+package com.dailycodebuffer.reactiveprogramming.store;
+
+import com.dailycodebuffer.reactiveprogramming.domain.BookInfo;
+import com.dailycodebuffer.reactiveprogramming.services.BookInfoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCatalogStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void getBookByIdReadsFromIndex() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 100)) {
+            store.put(new BookInfo(7, "Cien años de soledad", "García Márquez", "978-0307474728"));
+            store.put(new BookInfo(3, "Book Three", null, "23425444"));
+
+            var service = new MappedBookInfoService(store);
+            StepVerifier.create(service.getBookById(7))
+                    .expectNext(new BookInfo(7, "Cien años de soledad", "García Márquez", "978-0307474728"))
+                    .verifyComplete();
+            StepVerifier.create(service.getBookById(3))
+                    .expectNext(new BookInfo(3, "Book Three", null, "23425444"))
+                    .verifyComplete();
+            StepVerifier.create(service.getBookById(99))
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void putReplacesExistingBook() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 10)) {
+            store.put(new BookInfo(1, "Old", "Author", "1"));
+            store.put(new BookInfo(1, "New", "Author", "1"));
+
+            assertEquals(1, store.size());
+            assertEquals(2, store.records());
+            assertEquals("New", store.get(1).getTitle());
+
+            var service = new MappedBookInfoService(store);
+            StepVerifier.create(service.getBooks().map(BookInfo::getTitle))
+                    .expectNext("New")
+                    .verifyComplete();
+            StepVerifier.create(service.getBooksPage(BookInfoService.START, 10))
+                    .assertNext(page -> assertEquals(1, page.getBooks().size()))
+                    .verifyComplete();
+        }
+    }
+
+    //Un escritor actualiza libros (título y autor siempre con la misma versión) mientras
+    //varios lectores los leen sin locks: nunca pueden ver un registro a medias
+    @Test
+    void concurrentReadersNeverSeeTornRecords() throws Exception {
+        var books = 100;
+        var rounds = 500;
+        try (var store = MappedCatalogStore.open(directory, books * (rounds + 1L))) {
+            var done = new AtomicBoolean();
+            var failure = new AtomicReference<Throwable>();
+            var readers = new ArrayList<Thread>();
+            for (int r = 0; r < 4; r++) {
+                var reader = new Thread(() -> {
+                    try {
+                        var random = ThreadLocalRandom.current();
+                        while (!done.get()) {
+                            var book = store.get(random.nextLong(1, books + 1));
+                            if (book != null)
+                                assertEquals(book.getTitle().replace("Title ", "Author "), book.getAuthor());
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+
+            for (int round = 0; round < rounds; round++)
+                for (int id = 1; id <= books; id++)
+                    store.put(new BookInfo(id, "Title " + round, "Author " + round, "ISBN"));
+            done.set(true);
+            for (Thread reader : readers)
+                reader.join();
+
+            assertNull(failure.get());
+            assertEquals(books, store.size());
+            assertEquals("Title " + (rounds - 1), store.get(books).getTitle());
+        }
+    }
+
+    @Test
+    void catalogSurvivesReopening() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 1000)) {
+            for (int i = 1; i <= 1000; i++)
+                store.put(new BookInfo(i, "Book " + i, "Author", "ISBN"));
+        }
+
+        try (var store = MappedCatalogStore.open(directory, 1)) {
+            assertEquals(1000, store.size());
+            assertEquals(1000, store.capacity());
+            assertEquals("Book 500", store.get(500).getTitle());
+
+            StepVerifier.create(new MappedBookInfoService(store).getBooks(), 0)
+                    .thenRequest(1)
+                    .expectNextMatches(book -> book.getBookId() == 1)
+                    .thenRequest(Long.MAX_VALUE)
+                    .expectNextCount(999)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void getBooksPageUsesSortedRecords() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 100)) {
+            for (int i = 1; i <= 10; i++)
+                store.put(new BookInfo(i * 10, "Book " + i, "Author", "ISBN"));
+            var service = new MappedBookInfoService(store);
+
+            assertTrue(store.isSorted());
+            StepVerifier.create(service.getBooksPage(25, 3))
+                    .assertNext(page -> {
+                        assertEquals(30, page.getBooks().get(0).getBookId());
+                        assertEquals(50, page.getNextCursor());
+                        assertTrue(page.isHasMore());
+                    })
+                    .verifyComplete();
+            StepVerifier.create(service.getBooksFrom(BookInfoService.START, 4))
+                    .expectNextCount(10)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void getBooksPageFallsBackWhenUnsorted() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 10)) {
+            store.put(new BookInfo(2, "Two", "Author", "ISBN"));
+            store.put(new BookInfo(1, "One", "Author", "ISBN"));
+            var service = new MappedBookInfoService(store);
+
+            assertFalse(store.isSorted());
+            StepVerifier.create(service.getBooksPage(BookInfoService.START, 1))
+                    .assertNext(page -> assertEquals(1, page.getBooks().get(0).getBookId()))
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void rejectsOversizedFieldsAndFullCatalog() throws IOException {
+        try (var store = MappedCatalogStore.open(directory, 1)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.put(new BookInfo(1, "x".repeat(200), "Author", "ISBN")));
+            store.put(new BookInfo(1, "One", "Author", "ISBN"));
+            assertThrows(IllegalStateException.class,
+                    () -> store.put(new BookInfo(2, "Two", "Author", "ISBN")));
+        }
+    }
+}